@@ -0,0 +1,55 @@
+#!/bin/sh
+# Compila la CLI de BizSpec en build/bizspec.jar y genera build/bizspec.jsa, un archivo AppCDS
+# entrenado con los ejemplos: las clases del JDK y de BizSpec quedan ya parseadas y verificadas,
+# y la JVM arranca en milisegundos.
+#
+#   ./build-cds.sh
+#   java -XX:SharedArchiveFile=build/bizspec.jsa -jar build/bizspec.jar run archivo.biztest
+#
+# El .jsa solo sirve con el mismo JDK y el jar en la misma ruta; regenerarlo al cambiar cualquiera de los dos.
+set -e
+cd "$(dirname "$0")"
+OUT="$PWD/build"
+EXAMPLES=../ejemplosBiz
+
+# solo lo que genera este script: build/ también guarda build/test de run-tests.sh
+rm -rf "$OUT/src" "$OUT/classes" "$OUT/train" "$OUT/bizspec.jar" "$OUT/bizspec.jsa" "$OUT/classes.lst"
+mkdir -p "$OUT/src" "$OUT/classes" "$OUT/train"
+
+# fuentes a UTF-8: algunos archivos del proyecto están en ISO-8859-1
+for f in $(cd src && find . -name '*.java'); do
+    mkdir -p "$OUT/src/$(dirname "$f")"
+    if iconv -f UTF-8 -t UTF-8 "src/$f" > /dev/null 2>&1; then
+        cp "src/$f" "$OUT/src/$f"
+    else
+        iconv -f ISO-8859-1 -t UTF-8 "src/$f" > "$OUT/src/$f"
+    fi
+done
+javac -encoding UTF-8 -d "$OUT/classes" $(find "$OUT/src" -name '*.java')
+jar --create --file "$OUT/bizspec.jar" --main-class co.edu.unbosque.controller.CliMain -C "$OUT/classes" .
+
+# entrenamiento: cada subcomando sobre los ejemplos anota las clases que carga
+# (los ejemplos tienen tests que fallan a propósito: se ignora el código de salida)
+n=0
+train() {
+    n=$((n + 1))
+    java -Xshare:off -XX:DumpLoadedClassList="$OUT/train/$n.lst" -jar "$OUT/bizspec.jar" "$@" > /dev/null 2>&1 || true
+}
+for f in "$EXAMPLES"/*; do
+    train run --report "$OUT/train/report.xml" "$f"
+    train run -O --report "$OUT/train/report.jsonl" "$f"
+    train tokenize "$f"
+    train parse "$f"
+done
+train check "$EXAMPLES"/*
+train suite -O --history "$OUT/train/history" "$EXAMPLES"
+train suite --history "$OUT/train/history" "$EXAMPLES"
+train history "$OUT/train/history"
+sort -u "$OUT"/train/*.lst > "$OUT/classes.lst"
+
+java -Xshare:dump -XX:SharedClassListFile="$OUT/classes.lst" -XX:SharedArchiveFile="$OUT/bizspec.jsa" \
+     -cp "$OUT/bizspec.jar" > "$OUT/train/dump.log" 2>&1 || { cat "$OUT/train/dump.log"; exit 1; }
+
+rm -rf "$OUT/src" "$OUT/classes" "$OUT/train"
+echo "Listo: $OUT/bizspec.jar y $OUT/bizspec.jsa ($(wc -l < "$OUT/classes.lst") clases)"
+echo "Uso: java -XX:SharedArchiveFile=$OUT/bizspec.jsa -jar $OUT/bizspec.jar run <archivo>"
@@ -0,0 +1,26 @@
+#!/bin/sh
+# Compila src/ y test/ y corre cada clase *Test de test/ (un main que falla con AssertionError).
+#
+#   ./run-tests.sh
+set -e
+cd "$(dirname "$0")"
+OUT="$PWD/build/test"
+
+rm -rf "$OUT"
+mkdir -p "$OUT/src"
+# fuentes a UTF-8: algunos archivos del proyecto están en ISO-8859-1
+for f in $(find src test -name '*.java'); do
+    mkdir -p "$OUT/src/$(dirname "$f")"
+    if iconv -f UTF-8 -t UTF-8 "$f" > /dev/null 2>&1; then
+        cp "$f" "$OUT/src/$f"
+    else
+        iconv -f ISO-8859-1 -t UTF-8 "$f" > "$OUT/src/$f"
+    fi
+done
+javac -encoding UTF-8 -d "$OUT/classes" $(find "$OUT/src" -name '*.java')
+
+failed=0
+for t in $(cd test && find . -name '*Test.java' | sed 's|^\./||; s|\.java$||; s|/|.|g' | sort); do
+    java -ea -cp "$OUT/classes" "$t" || { echo "FALLÓ: $t"; failed=$((failed + 1)); }
+done
+[ "$failed" -eq 0 ] || { echo "$failed clase(s) de test fallaron"; exit 1; }
@@ -1,19 +1,63 @@
 package co.edu.unbosque.controller;
 
 
+import java.io.File;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
+import javax.swing.Timer;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Element;
 
 import co.edu.unbosque.model.ast.BizNode;
+import co.edu.unbosque.model.engine.Coverage;
+import co.edu.unbosque.model.engine.LiveRunner;
+import co.edu.unbosque.model.engine.Metrics;
+import co.edu.unbosque.model.engine.SourceLoader;
 import co.edu.unbosque.model.lexer.Evaluator;
-import co.edu.unbosque.model.lexer.Token;
-import co.edu.unbosque.model.lexer.Tokenizer;
-import co.edu.unbosque.model.parser.Parser;
+import co.edu.unbosque.model.lexer.TokenStore;
+import co.edu.unbosque.model.parser.IncrementalParser;
+import co.edu.unbosque.model.report.StreamReporter;
 import co.edu.unbosque.view.BizSpecFrame;
 import co.edu.unbosque.view.TokenTableModel;
 
 public class BizSpecController {
 
     private final BizSpecFrame view;
+    private boolean instrument = false;
+    private boolean coverage = false;
+    private boolean live = false;
+    private LiveRunner liveRunner;
+    private Metrics lastMetrics = Metrics.OFF;
+    private SwingWorker<?, ?> current;
+    private final Timer diagnostics = new Timer(300, e -> diagnose());
+
+    // front end incremental: solo lo toca el hilo frontEnd, que recibe las ediciones en orden;
+    // el EDT solo copia las lneas editadas y recibe ASTs y tokens ya listos (que no cambian despus)
+    private final ExecutorService frontEnd = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "bizspec-frontend");
+        t.setDaemon(true);
+        return t;
+    });
+    private IncrementalParser front;
+    private int lines;   // lneas del documento ya enviadas al front end
+
+    /** AST y tokens del editor en un mismo momento. */
+    private record Snapshot(BizNode program, TokenStore tokens) {}
+
+    /** Resultado del diagnstico en vivo: el primer error, o el AST y el trabajo incremental hecho. */
+    private record Diagnosis(String error, BizNode program, String work) {}
 
     public BizSpecController(BizSpecFrame view) {
         this.view = view;
@@ -23,50 +67,218 @@ public class BizSpecController {
         view.onTokenize(this::tokenize);
         view.onParse(this::parse);
         view.onRunTests(this::runTests);
+        view.onToggleMetrics(on -> instrument = on);
+        view.onShowMetrics(this::showMetrics);
+        view.onToggleCoverage(on -> coverage = on);
+        view.onExportReport(this::exportReport);
+        view.onCancel(this::cancel);
+        view.onToggleLive(this::toggleLive);
         view.loadSample(sample());
+        resync();
+        diagnostics.setRepeats(false);
+        view.addEditorListener(new DocumentListener() {
+            @Override public void insertUpdate(DocumentEvent e) { edited(e); }
+            @Override public void removeUpdate(DocumentEvent e) { edited(e); }
+            @Override public void changedUpdate(DocumentEvent e) {}
+        });
     }
 
     private void tokenize() {
-        try {
-            Tokenizer tz = new Tokenizer(view.getSource());
-            List<Token> toks = tz.tokenize();
-            view.setTokens(new TokenTableModel(toks));
-            view.setStatus("Tokens: " + toks.size());
+        Metrics m = newMetrics();
+        view.setStatus("Tokenizando...");
+        onFrontEnd(f -> tokens(f, m), store -> {
+            view.setTokens(new TokenTableModel(store));
+            view.setStatus("Tokens: " + store.size());
             view.clearConsole();
-        } catch (Exception ex) {
-            view.showError(ex.getMessage());
-        }
+        });
     }
 
     private void parse() {
-        try {
-            Tokenizer tz = new Tokenizer(view.getSource());
-            List<Token> toks = tz.tokenize();
-            Parser p = new Parser(toks);
-            BizNode ast = p.parseProgram();
-
-            view.setTokens(new TokenTableModel(toks));
-            view.setConsole(ast.toString());
+        Metrics m = newMetrics();
+        view.setStatus("Parseando...");
+        onFrontEnd(f -> snapshot(f, m), s -> {
+            view.setTokens(new TokenTableModel(s.tokens));
+            view.setConsole(s.program.toString());
             view.setStatus("Parse OK");
-        } catch (Exception ex) {
-            view.showError(ex.getMessage());
-        }
+        });
     }
 
     private void runTests() {
+        Metrics m = newMetrics();
+        Coverage cov = coverage ? new Coverage() : null;
+        view.setStatus("Parseando...");
+        onFrontEnd(f -> snapshot(f, m), s -> {
+            view.setTokens(new TokenTableModel(s.tokens));
+            view.clearConsole();
+            start("Corriendo tests...", new TestRunWorker(s.program, m, cov, view));
+        });
+    }
+
+    private void exportReport(File file) {
+        onFrontEnd(f -> SourceLoader.load(f, Metrics.OFF), ast -> start("Exportando reporte...", new SwingWorker<Void, Void>() {
+            @Override protected Void doInBackground() throws Exception {
+                try (StreamReporter reporter = StreamReporter.open(file.toPath())) {
+                    Evaluator.run(ast, reporter, Metrics.OFF, null);
+                }
+                return null;
+            }
+            @Override protected void done() {
+                try {
+                    get();
+                    view.setStatus("Reporte exportado: " + file.getName());
+                } catch (Exception ex) {
+                    fail(ex);
+                }
+            }
+        }));
+    }
+
+    // ===== front end incremental =====
+    /**
+     * Corre {@code work} en el hilo del front end, despus de las ediciones ya enviadas;
+     * {@code then} recibe el resultado en el EDT. Un error va a {@link #fail}.
+     */
+    private <T> void onFrontEnd(Function<IncrementalParser, T> work, Consumer<T> then) {
+        frontEnd.execute(() -> {
+            try {
+                T result = work.apply(front);
+                SwingUtilities.invokeLater(() -> then.accept(result));
+            } catch (RuntimeException ex) {
+                SwingUtilities.invokeLater(() -> fail(ex));
+            }
+        });
+    }
+
+    /** Tokens desde las lneas ya tokenizadas (solo se re-tokenizaron las editadas). */
+    private static TokenStore tokens(IncrementalParser f, Metrics m) {
+        long t0 = m.start();
+        TokenStore store = f.tokenStore();
+        m.stop(Metrics.Phase.TOKENIZE, t0);
+        return store;
+    }
+
+    /** AST actual del editor (solo se re-parsean los bloques editados) y sus tokens. */
+    private static Snapshot snapshot(IncrementalParser f, Metrics m) {
+        BizNode ast = SourceLoader.load(f, m);
+        return new Snapshot(ast, tokens(f, m));
+    }
+
+    /** Manda al front end el texto completo del editor: al iniciar o si se perdi la correspondencia de lneas. */
+    private void resync() {
+        String text = view.getSource();
+        lines = 1;
+        for (int k = 0; k < text.length(); k++) if (text.charAt(k) == '\n') lines++;
+        frontEnd.execute(() -> front = new IncrementalParser(text));
+    }
+
+    private void edited(DocumentEvent e) {
+        Document doc = e.getDocument();
+        Element root = doc.getDefaultRootElement();
+        DocumentEvent.ElementChange ch = e.getChange(root);
+        int first = ch != null ? ch.getIndex() : root.getElementIndex(e.getOffset());
+        int removed = ch != null ? ch.getChildrenRemoved().length : 1;
+        int added = ch != null ? ch.getChildrenAdded().length : 1;
         try {
-            Tokenizer tz = new Tokenizer(view.getSource());
-            List<Token> toks = tz.tokenize();
-            Parser p = new Parser(toks);
-            BizNode ast = p.parseProgram();
-
-            String output = Evaluator.run(ast);
-            view.setTokens(new TokenTableModel(toks));
-            view.setConsole(output);
-            view.setStatus("Tests ejecutados");
-        } catch (Exception ex) {
-            view.showError(ex.getMessage());
+            List<String> changed = new ArrayList<>(added);
+            for (int i = first; i < first + added; i++) {
+                Element el = root.getElement(i);
+                int end = Math.min(el.getEndOffset(), doc.getLength());
+                String text = doc.getText(el.getStartOffset(), end - el.getStartOffset());
+                changed.add(text.endsWith("\n") ? text.substring(0, text.length() - 1) : text);
+            }
+            lines += added - removed;
+            if (lines != root.getElementCount()) {
+                resync();
+            } else {
+                frontEnd.execute(() -> {
+                    try {
+                        front.replaceLines(first, removed, changed);
+                    } catch (RuntimeException ex) {
+                        SwingUtilities.invokeLater(this::resync);
+                    }
+                });
+            }
+        } catch (BadLocationException | RuntimeException ex) {
+            resync();
         }
+        diagnostics.restart();
+    }
+
+    /**
+     * Diagnstico en vivo tras una pausa al escribir; no pisa el estado de una tarea en curso
+     * (salvo una corrida en vivo anterior, que se reemplaza).
+     */
+    private void diagnose() {
+        if (busy()) return;
+        onFrontEnd(f -> {
+            try {
+                BizNode ast = SourceLoader.load(f, Metrics.OFF);
+                return new Diagnosis(null, ast, f.lastWork());
+            } catch (RuntimeException ex) {
+                return new Diagnosis(ex.getMessage(), null, null);
+            }
+        }, d -> {
+            if (busy()) return;   // empez otra tarea mientras se parseaba
+            if (d.error != null) view.setStatus(d.error);
+            else if (live) liveTests(d.program);
+            else view.setStatus("Parse OK (" + d.work + ")");
+        });
+    }
+
+    private boolean busy() {
+        return current != null && !current.isDone() && !(current instanceof LiveTestWorker);
+    }
+
+    // ===== tests en vivo =====
+    private void toggleLive(boolean on) {
+        live = on;
+        if (on) {
+            if (liveRunner == null) liveRunner = new LiveRunner();
+            liveRunner.reset();
+            diagnostics.restart();
+        } else if (current instanceof LiveTestWorker) {
+            cancel();
+            view.setStatus("Tests en vivo desactivados");
+        }
+    }
+
+    /** Re-ejecuta solo los tests afectados desde la ltima corrida en vivo completa. */
+    private void liveTests(BizNode ast) {
+        view.clearConsole();
+        start("En vivo: analizando cambios...", new LiveTestWorker(ast, liveRunner, view));
+    }
+
+    /** Lanza {@code worker} en segundo plano; cancela el que estuviera corriendo. */
+    private void start(String status, SwingWorker<?, ?> worker) {
+        cancel();
+        current = worker;
+        view.setStatus(status);
+        worker.execute();
+    }
+
+    private void cancel() {
+        if (current != null && !current.isDone()) current.cancel(true);
+    }
+
+    private void fail(Exception ex) {
+        if (ex instanceof CancellationException) { view.setStatus("Cancelado"); return; }
+        if (ex instanceof InterruptedException) { Thread.currentThread().interrupt(); return; }
+        Throwable cause = ex instanceof ExecutionException ? ex.getCause() : ex;
+        view.showError(cause.getMessage());
+    }
+
+    private void showMetrics() {
+        if (!lastMetrics.enabled()) {
+            view.setConsole("Instrumentacin desactivada (Ejecutar > Instrumentacin)");
+            return;
+        }
+        view.setConsole(lastMetrics.snapshot().toString());
+        view.setStatus("Mtricas de la ltima ejecucin");
+    }
+
+    private Metrics newMetrics() {
+        lastMetrics = instrument ? new Metrics() : Metrics.OFF;
+        return lastMetrics;
     }
 
     private String sample() {
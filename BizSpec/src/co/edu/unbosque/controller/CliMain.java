@@ -0,0 +1,272 @@
+package co.edu.unbosque.controller;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import co.edu.unbosque.model.ast.BizNode;
+import co.edu.unbosque.model.ast.TableNode;
+import co.edu.unbosque.model.engine.CompiledProgram;
+import co.edu.unbosque.model.engine.Coverage;
+import co.edu.unbosque.model.engine.Engine;
+import co.edu.unbosque.model.engine.Limits;
+import co.edu.unbosque.model.engine.Metrics;
+import co.edu.unbosque.model.engine.RuleAnalyzer;
+import co.edu.unbosque.model.engine.SourceLoader;
+import co.edu.unbosque.model.lexer.Token;
+import co.edu.unbosque.model.lexer.TokenType;
+import co.edu.unbosque.model.report.StreamReporter;
+import co.edu.unbosque.model.report.TestReporter;
+import co.edu.unbosque.model.report.TextReporter;
+import co.edu.unbosque.model.runner.RunHistory;
+import co.edu.unbosque.model.runner.SpecWatcher;
+import co.edu.unbosque.model.runner.SuiteRunner;
+
+/**
+ * Punto de entrada sin interfaz gráfica (no carga javax.swing), para CI y scripts.
+ * Salida: 0 si todo pasa, 1 si algún test falla o el fuente no compila, 2 si el uso es incorrecto.
+ * Un test que lanza un error al evaluarse se reporta como FAIL y la corrida sigue.
+ * Toda la salida (estándar y de errores) va en UTF-8, sin importar el charset de la plataforma.
+ * En run, check, tokenize y parse el archivo "-" es la entrada estándar.
+ * Uso:
+ *   run [-O] [--report archivo] <archivo>                  corre los tests de un archivo (formato de consola);
+ *                                                          --report además escribe .xml / .jsonl / texto
+ *   check <archivo>...                                     tokeniza, parsea y compila; avisa las reglas muertas
+ *   tokenize <archivo>                                     lista los tokens: línea:columna TIPO lexema
+ *   parse <archivo>                                        imprime el AST
+ *   suite [-j hilos] [--shard i/n] [-O] [--coverage] [--history dir] <dir|archivo>...
+ *                                                          corre todos los specs; sale con 1 si algo falla;
+ *                                                          -O quita las reglas que nunca se aplican y las avisa;
+ *                                                          --coverage reporta la cobertura de reglas por archivo;
+ *                                                          --history agrega la corrida al historial de dir
+ *   history [--baseline n] <dir>                           compara la última corrida del historial con las n
+ *                                                          anteriores (10); sale con 1 si algo se hizo más lento
+ *   watch [-j hilos] <dir|archivo>...                      corre los tests y los re-corre en cada cambio guardado
+ */
+public class CliMain {
+
+    static final int PASS = 0, FAIL = 1, USAGE = 2;
+
+    public static void main(String[] args) {
+        System.setOut(new PrintStream(System.out, true, StandardCharsets.UTF_8));
+        System.setErr(new PrintStream(System.err, true, StandardCharsets.UTF_8));
+        System.exit(run(args));
+    }
+
+    static int run(String[] args) {
+        if (args.length == 0) return usage();
+        try {
+            switch (args[0]) {
+                case "run":      return runFile(args);
+                case "check":    return check(args);
+                case "tokenize": return tokenize(args);
+                case "parse":    return parse(args);
+                case "suite":    return suite(args);
+                case "watch":    return watch(args);
+                case "history":  return history(args);
+                default:         return usage();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return PASS;
+        } catch (Exception ex) {
+            System.err.println("Error: " + ex.getMessage());
+            return USAGE;
+        }
+    }
+
+    private static int runFile(String[] args) throws IOException {
+        Engine.Optimization opt = Engine.Optimization.NONE;
+        Path report = null;
+        String file = null;
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals("-O")) opt = Engine.Optimization.PRUNE;
+            else if (args[i].equals("--report") && i + 1 < args.length) report = Path.of(args[++i]);
+            else if (file == null) file = args[i];
+            else return usage();
+        }
+        if (file == null) return usage();
+        String source = read(file);
+        Writer out = stdout();
+        CompiledProgram program;
+        try {
+            program = new Engine(Limits.DEFAULT, opt).compile(source);
+        } catch (RuntimeException ex) {
+            System.err.println(file + ": " + ex.getMessage());
+            return FAIL;
+        }
+        int[] failed = new int[1];
+        TestReporter count = new TestReporter() {
+            @Override public void runFinished(int passed, int failures) { failed[0] = failures; }
+        };
+        TestReporter text = new TextReporter(out);
+        try (TestReporter reporter = report == null
+                ? TestReporter.all(text, count)
+                : TestReporter.all(text, StreamReporter.open(report), count)) {
+            for (RuleAnalyzer.Warning w : program.warnings()) System.err.println(file + ": " + w);
+            program.runTests(reporter, Metrics.OFF, null);
+        }   // cerrar los reporters vacía y cierra la salida
+        return failed[0] == 0 ? PASS : FAIL;
+    }
+
+    private static int check(String[] args) throws IOException {
+        if (args.length < 2) return usage();
+        Engine engine = new Engine(Limits.DEFAULT, Engine.Optimization.PRUNE);
+        int status = PASS;
+        for (int i = 1; i < args.length; i++) {
+            String source = read(args[i]);
+            try {
+                CompiledProgram p = engine.compile(source);
+                for (RuleAnalyzer.Warning w : p.warnings()) System.out.println(args[i] + ": ⚠ " + w);
+                System.out.println(args[i] + ": OK (" + p.rules().rules().size() + " reglas activas, "
+                        + p.warnings().size() + " quitadas, " + p.cases() + " casos)");
+            } catch (RuntimeException ex) {
+                System.out.println(args[i] + ": ✗ " + ex.getMessage());
+                status = FAIL;
+            }
+        }
+        return status;
+    }
+
+    private static int tokenize(String[] args) throws IOException {
+        if (args.length != 2) return usage();
+        String source = read(args[1]);
+        Writer out = stdout();
+        try {
+            for (Token t : SourceLoader.tokenize(source, Metrics.OFF)) {
+                String lexeme = t.type == TokenType.NEWLINE ? "\\n" : t.lexeme;
+                out.write(t.line + ":" + t.col + "\t" + t.type + "\t" + lexeme + "\n");
+            }
+        } catch (RuntimeException ex) {
+            out.flush();
+            System.err.println(args[1] + ": " + ex.getMessage());
+            return FAIL;
+        }
+        out.flush();
+        return PASS;
+    }
+
+    private static int parse(String[] args) throws IOException {
+        if (args.length != 2) return usage();
+        String source = read(args[1]);
+        BizNode program;
+        try {
+            program = SourceLoader.load(source, Metrics.OFF).program();
+        } catch (RuntimeException ex) {
+            System.err.println(args[1] + ": " + ex.getMessage());
+            return FAIL;
+        }
+        Writer out = stdout();
+        print(out, program, "");
+        out.flush();
+        return PASS;
+    }
+
+    private static void print(Writer out, BizNode n, String indent) throws IOException {
+        out.write(indent + n + "\n");
+        if (n instanceof TableNode t) {
+            out.write(indent + "  given " + String.join(", ", t.givens) + " expect " + String.join(", ", t.expects)
+                    + " (" + t.rows() + " filas)\n");
+        }
+        for (BizNode c : n.children) print(out, c, indent + "  ");
+    }
+
+    /** Archivo UTF-8, o la entrada estándar si es "-". */
+    private static String read(String file) throws IOException {
+        if (file.equals("-")) return new String(System.in.readAllBytes(), StandardCharsets.UTF_8);
+        return Files.readString(Path.of(file));
+    }
+
+    private static Writer stdout() {
+        return new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 64 * 1024);
+    }
+
+    private static int suite(String[] args) throws Exception {
+        int threads = Runtime.getRuntime().availableProcessors(), shard = 0, shards = 1;
+        Engine.Optimization opt = Engine.Optimization.NONE;
+        Path history = null;
+        Coverage coverage = null;
+        List<Path> roots = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals("-O")) {
+                opt = Engine.Optimization.PRUNE;
+            } else if (args[i].equals("--coverage")) {
+                coverage = new Coverage();
+            } else if (args[i].equals("--history") && i + 1 < args.length) {
+                history = Path.of(args[++i]);
+            } else if (args[i].equals("-j") && i + 1 < args.length) {
+                threads = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--shard") && i + 1 < args.length) {
+                String[] s = args[++i].split("/", 2);
+                shard = Integer.parseInt(s[0]);
+                shards = Integer.parseInt(s[1]);
+            } else {
+                roots.add(Path.of(args[i]));
+            }
+        }
+        if (roots.isEmpty()) return usage();
+        List<Path> files = SuiteRunner.shard(SuiteRunner.discover(roots), shard, shards);
+        try (SuiteRunner runner = new SuiteRunner(threads, new Engine(Limits.DEFAULT, opt))) {
+            SuiteRunner.Summary s = runner.run(files, coverage, history != null);
+            System.out.print(s);
+            if (coverage != null) {
+                for (SuiteRunner.FileResult f : s.files()) {
+                    if (f.rules() != null) System.out.print("\n" + f.path() + "\n" + coverage.report(f.rules()));
+                }
+            }
+            if (shards > 1) System.out.println("(shard " + shard + "/" + shards + ")");
+            if (history != null) new RunHistory(history).append(s);
+            return s.ok() ? PASS : FAIL;
+        }
+    }
+
+    private static int history(String[] args) throws IOException {
+        int baseline = RunHistory.DEFAULT_BASELINE;
+        Path dir = null;
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals("--baseline") && i + 1 < args.length) baseline = Integer.parseInt(args[++i]);
+            else if (dir == null) dir = Path.of(args[i]);
+            else return usage();
+        }
+        if (dir == null) return usage();
+        RunHistory.Comparison c = new RunHistory(dir).compare(baseline);
+        if (c == null) {
+            System.out.println(dir + ": sin corridas");
+            return PASS;
+        }
+        System.out.print(c);
+        return c.ok() ? PASS : FAIL;
+    }
+
+    private static int watch(String[] args) throws Exception {
+        int threads = Runtime.getRuntime().availableProcessors();
+        List<Path> roots = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals("-j") && i + 1 < args.length) threads = Integer.parseInt(args[++i]);
+            else roots.add(Path.of(args[i]));
+        }
+        if (roots.isEmpty()) return usage();
+        try (SpecWatcher w = new SpecWatcher(roots, threads, System.out)) {
+            w.run();
+        }
+        return PASS;
+    }
+
+    private static int usage() {
+        System.err.println("Uso: CliMain run [-O] [--report archivo] <archivo>");
+        System.err.println("     CliMain check <archivo>...");
+        System.err.println("     CliMain tokenize <archivo>");
+        System.err.println("     CliMain parse <archivo>");
+        System.err.println("     CliMain suite [-j hilos] [--shard i/n] [-O] [--coverage] [--history dir] <dir|archivo>...");
+        System.err.println("     CliMain watch [-j hilos] <dir|archivo>...");
+        System.err.println("     CliMain history [--baseline n] <dir>");
+        return USAGE;
+    }
+}
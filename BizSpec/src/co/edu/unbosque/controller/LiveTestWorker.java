@@ -0,0 +1,95 @@
+package co.edu.unbosque.controller;
+
+import java.io.Writer;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+
+import javax.swing.SwingWorker;
+
+import co.edu.unbosque.model.ast.BizNode;
+import co.edu.unbosque.model.engine.LiveRunner;
+import co.edu.unbosque.view.BizSpecFrame;
+
+/**
+ * Modo en vivo: tras una pausa al escribir, {@link LiveRunner} elige los casos (tests y filas de tablas)
+ * afectados por la edición y los re-ejecuta en su pool. La consola muestra solo los re-ejecutados, publicados por bloques
+ * como en {@link TestRunWorker}; el estado muestra el total de la suite.
+ * Se cancela en silencio cuando llega otra edición.
+ */
+class LiveTestWorker extends SwingWorker<LiveRunner.Summary, Object> {
+
+    private static final int CHUNK = 16 * 1024;
+
+    private record Progress(int done, int total) {}
+
+    private final BizNode program;
+    private final LiveRunner runner;
+    private final BizSpecFrame view;
+    private final Writer console;
+
+    LiveTestWorker(BizNode program, LiveRunner runner, BizSpecFrame view) {
+        this.program = program;
+        this.runner = runner;
+        this.view = view;
+        this.console = view.consoleWriter();
+    }
+
+    @Override
+    protected LiveRunner.Summary doInBackground() {
+        LiveRunner.Plan plan = runner.plan(program);
+        StringBuilder pending = new StringBuilder("== BizSpec :: Tests en vivo ==\n");
+        if (!plan.changedTargets().isEmpty()) {
+            pending.append("Reglas cambiadas: ").append(String.join(", ", plan.changedTargets())).append("\n");
+        }
+        pending.append(plan.selected() == 0
+                ? "Ningún caso afectado por el cambio\n"
+                : "Re-ejecutando " + plan.selected() + " de " + plan.total() + " casos\n");
+        publish(pending.toString());
+        pending.setLength(0);
+
+        int[] done = {0};
+        long[] last = {System.nanoTime()};
+        LiveRunner.Summary summary = runner.run(plan, r -> {
+            pending.append(r.report());
+            done[0]++;
+            long now = System.nanoTime();
+            if (pending.length() >= CHUNK || now - last[0] >= TestRunWorker.PUBLISH_MS * 1_000_000L) {
+                last[0] = now;
+                publish(pending.toString(), new Progress(done[0], plan.selected()));
+                pending.setLength(0);
+            }
+        });
+        publish(pending.toString());
+        return summary;
+    }
+
+    @Override
+    protected void process(List<Object> chunks) {
+        if (isCancelled()) return;
+        Progress last = null;
+        try {
+            for (Object c : chunks) {
+                if (c instanceof String s) console.write(s);
+                else if (c instanceof Progress p) last = p;
+            }
+            console.flush();
+        } catch (Exception ignored) {}
+        if (last != null) view.setStatus("En vivo: " + last.done + "/" + last.total + " casos re-ejecutados");
+    }
+
+    @Override
+    protected void done() {
+        if (isCancelled()) return;
+        try {
+            LiveRunner.Summary s = get();
+            view.setStatus("En vivo: " + s.rerun() + " re-ejecutados — suite: " + s.passed() + " PASS, " + s.failed() + " FAIL");
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (!(cause instanceof CancellationException)) view.showError(cause.getMessage());
+        }
+        try { console.flush(); } catch (Exception ignored) {}
+    }
+}
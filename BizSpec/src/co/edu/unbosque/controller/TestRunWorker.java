@@ -0,0 +1,108 @@
+package co.edu.unbosque.controller;
+
+import java.io.Writer;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+
+import javax.swing.SwingWorker;
+
+import co.edu.unbosque.model.ast.BizNode;
+import co.edu.unbosque.model.engine.Coverage;
+import co.edu.unbosque.model.engine.Metrics;
+import co.edu.unbosque.model.lexer.Evaluator;
+import co.edu.unbosque.model.report.TestReporter;
+import co.edu.unbosque.model.report.TextReporter;
+import co.edu.unbosque.view.BizSpecFrame;
+
+/**
+ * Corre los tests fuera del EDT:
+ * - El texto del reporte se publica por bloques (a lo sumo cada {@value #PUBLISH_MS} ms o 16K)
+ * - El progreso (tests hechos / total y test actual) se coalesce: solo se pinta el último
+ * - {@code cancel(true)} interrumpe el hilo; Evaluator se detiene antes del siguiente test
+ */
+class TestRunWorker extends SwingWorker<Void, Object> {
+
+    static final long PUBLISH_MS = 100;
+    private static final int CHUNK = 16 * 1024;
+
+    private record Progress(int done, int total, String test) {}
+
+    private final BizNode program;
+    private final Metrics metrics;
+    private final Coverage coverage;
+    private final BizSpecFrame view;
+    private final Writer console;
+
+    TestRunWorker(BizNode program, Metrics metrics, Coverage coverage, BizSpecFrame view) {
+        this.program = program;
+        this.metrics = metrics;
+        this.coverage = coverage;
+        this.view = view;
+        this.console = view.consoleWriter();
+    }
+
+    @Override
+    protected Void doInBackground() {
+        StringBuilder pending = new StringBuilder();
+        Writer text = new Writer() {
+            @Override public void write(char[] cbuf, int off, int len) { pending.append(cbuf, off, len); }
+            @Override public void write(String s) { pending.append(s); }
+            @Override public void flush() {}
+            @Override public void close() {}
+        };
+        TestReporter progress = new TestReporter() {
+            private int total, done;
+            private long last = System.nanoTime();
+
+            @Override public void runStarted(int tests) { total = tests; }
+            @Override public void testFinished(String name, boolean passed, long nanos) {
+                done++;
+                long now = System.nanoTime();
+                if (pending.length() >= CHUNK || now - last >= PUBLISH_MS * 1_000_000L) {
+                    last = now;
+                    publish(pending.toString(), new Progress(done, total, name));
+                    pending.setLength(0);
+                }
+            }
+            @Override public void runFinished(int passed, int failed) {
+                if (coverage != null) pending.append("\n").append(coverage.report());
+                publish(pending.toString());
+                pending.setLength(0);
+            }
+        };
+        Evaluator.run(program, TestReporter.all(new TextReporter(text), progress), metrics, coverage);
+        return null;
+    }
+
+    @Override
+    protected void process(List<Object> chunks) {
+        if (isCancelled()) return;
+        Progress last = null;
+        try {
+            for (Object c : chunks) {
+                if (c instanceof String s) console.write(s);
+                else if (c instanceof Progress p) last = p;
+            }
+            console.flush();
+        } catch (Exception ignored) {}
+        if (last != null) view.setStatus("Tests: " + last.done + "/" + last.total + " — " + last.test);
+    }
+
+    @Override
+    protected void done() {
+        try {
+            get();
+            view.setStatus("Tests ejecutados");
+        } catch (CancellationException ex) {
+            view.setStatus("Cancelado");
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof CancellationException) view.setStatus("Cancelado");
+            else view.showError(cause.getMessage());
+        }
+        try { console.flush(); } catch (Exception ignored) {}
+    }
+}
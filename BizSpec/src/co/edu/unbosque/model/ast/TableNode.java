@@ -0,0 +1,48 @@
+package co.edu.unbosque.model.ast;
+
+/**
+ * Test tabular: {@code table "nombre" given a.b, c expect d { 1, "x", 5 ... }}.
+ * Guarda el encabezado una vez y las celdas de todas las filas en un arreglo plano, sin nodos por fila.
+ * Cada celda es Double, String, Boolean o null. Los String se comparan con {@code equals}: una celda "oro"
+ * equivale a la expresión {@code "oro"}, no a la ruta {@code oro}.
+ */
+public class TableNode extends BizNode {
+    public final String[] givens;    // rutas de hechos, una por columna
+    public final String[] expects;   // rutas esperadas, después de los givens
+    private final Object[] cells;    // fila r, columna c → cells[r * columns() + c]
+    private final int[] rowOffsets;  // línea de la fila r = line + rowOffsets[r]
+    private final int rows;
+
+    public TableNode(String name, int line, int col, String[] givens, String[] expects,
+                     Object[] cells, int[] rowOffsets, int rows) {
+        super("Table", name, line, col);
+        this.givens = givens;
+        this.expects = expects;
+        this.cells = cells;
+        this.rowOffsets = rowOffsets;
+        this.rows = rows;
+    }
+
+    public int rows() { return rows; }
+
+    public int columns() { return givens.length + expects.length; }
+
+    public Object cell(int row, int col) { return cells[row * columns() + col]; }
+
+    public int rowLine(int row) { return line + rowOffsets[row]; }
+
+    /** Nombre con el que se reporta la fila {@code row} (desde 0). */
+    public String rowName(int row) { return text + " [" + (row + 1) + "]"; }
+
+    /** La misma tabla {@code delta} líneas más abajo; comparte las celdas. */
+    public TableNode shifted(int delta) {
+        return new TableNode(text, line + delta, col, givens, expects, cells, rowOffsets, rows);
+    }
+
+    /** Celda como se escribe en el fuente: 5, 2.5, "oro", true, null. */
+    public static String literal(Object v) {
+        if (v instanceof String s) return "\"" + s + "\"";
+        if (v instanceof Double d && d == Math.rint(d) && Math.abs(d) < 1e15) return Long.toString(d.longValue());
+        return String.valueOf(v);
+    }
+}
@@ -0,0 +1,354 @@
+package co.edu.unbosque.model.engine;
+
+import java.util.*;
+import java.util.concurrent.CancellationException;
+
+import co.edu.unbosque.model.ast.BizNode;
+import co.edu.unbosque.model.ast.TableNode;
+import co.edu.unbosque.model.lexer.Evaluator;
+import co.edu.unbosque.model.lexer.Evaluator.Test;
+import co.edu.unbosque.model.report.TestReporter;
+
+/**
+ * Programa BizSpec compilado por {@link Engine}: reglas y tests con todas sus expresiones ya tokenizadas.
+ * Inmutable; {@link #evaluate}, {@link #decide}, {@link #runTest} y {@link #runTests}
+ * se pueden llamar a la vez desde muchos hilos.
+ * Un límite superado ({@link EvaluationLimitException}) hace fallar esa decisión o ese test, no la corrida.
+ * Casos: primero los tests, después las filas de cada tabla en orden; cada fila se reporta como un test.
+ */
+public final class CompiledProgram {
+
+    /** Filas de tabla que {@link #runCases} corre con un mismo estado de evaluación. */
+    static final int ROW_BATCH = 256;
+
+    private final Engine engine;
+    private final RuleSet rules;
+    private final List<RuleAnalyzer.Warning> warnings;
+    private final List<Test> tests;
+    private final CompiledTest[] compiled;
+    private final Fixtures fixtures;
+    private final List<TableNode> tables = new ArrayList<>();
+    private final String[][][] tablePaths;   // por tabla: rutas de sus columnas, ya partidas
+    private final int[] rowStart;            // caso de la primera fila de cada tabla; el último es cases()
+    private final String[] targetNames;
+
+    CompiledProgram(Engine engine, BizNode program) {
+        this.engine = engine;
+        RuleSet all = RuleSet.compile(program);
+        for (RuleSet.Rule r : all.rules()) {
+            engine.checkDepth(r.condition());
+            engine.checkDepth(r.value());
+        }
+        if (engine.optimization() == Engine.Optimization.PRUNE) {
+            this.warnings = List.copyOf(RuleAnalyzer.analyze(all));
+            this.rules = RuleAnalyzer.prune(all, warnings);
+        } else {
+            this.warnings = List.of();
+            this.rules = all;
+        }
+        this.tests = List.copyOf(Evaluator.tests(program));
+        this.compiled = new CompiledTest[tests.size()];
+        for (int i = 0; i < compiled.length; i++) compiled[i] = new CompiledTest(engine, rules.symbols(), tests.get(i));
+        this.fixtures = new Fixtures(rules, engine.limits(), compiled);
+        for (BizNode n : program.children) if (n instanceof TableNode t) tables.add(t);
+        this.tablePaths = new String[tables.size()][][];
+        this.rowStart = new int[tables.size() + 1];
+        rowStart[0] = tests.size();
+        for (int k = 0; k < tables.size(); k++) {
+            TableNode t = tables.get(k);
+            tablePaths[k] = new String[t.columns()][];
+            for (int c = 0; c < t.columns(); c++) {
+                String path = c < t.givens.length ? t.givens[c] : t.expects[c - t.givens.length];
+                tablePaths[k][c] = rules.symbols().path(path);
+            }
+            rowStart[k + 1] = rowStart[k] + t.rows();
+        }
+        this.targetNames = rules.targets().toArray(new String[0]);
+    }
+
+    public RuleSet rules() { return rules; }
+
+    /** Reglas quitadas por nunca aplicarse; vacía salvo con {@link Engine.Optimization#PRUNE}. */
+    public List<RuleAnalyzer.Warning> warnings() { return warnings; }
+
+    /** Tests del programa, en orden del fuente. */
+    public List<Test> tests() { return tests; }
+
+    /** Tablas del programa, en orden del fuente. */
+    public List<TableNode> tables() { return Collections.unmodifiableList(tables); }
+
+    /** Tests más filas de todas las tablas. */
+    public int cases() { return rowStart[tables.size()]; }
+
+    /** Nombre con el que se reporta el caso {@code k}. */
+    public String caseName(int k) {
+        if (k < tests.size()) return tests.get(k).name();
+        int t = tableOf(k);
+        return tables.get(t).rowName(k - rowStart[t]);
+    }
+
+    /** Tabla a la que pertenece el caso {@code k}, o null si es un test. */
+    public TableNode table(int k) {
+        return k < tests.size() ? null : tables.get(tableOf(k));
+    }
+
+    // ===== decisiones =====
+    /**
+     * Valores de los targets asignados por las reglas sobre {@code facts}. Los targets son identificadores
+     * simples, así que basta copiar el primer nivel de {@code facts} al entorno del hilo para no modificarlo.
+     */
+    public Map<String, Object> evaluate(Map<String, Object> facts) {
+        return evaluate(facts, null);
+    }
+
+    public Map<String, Object> evaluate(Map<String, Object> facts, RuleSet.RuleListener listener) {
+        return evaluate(facts, listener, null, null);
+    }
+
+    /** Igual que {@link #evaluate(Map)}; si el muestreo de {@code tracer} la elige, la decisión queda trazada. */
+    public Map<String, Object> evaluate(Map<String, Object> facts, DecisionTracer tracer, String tenant) {
+        return evaluate(facts, null, tracer, tenant);
+    }
+
+    private Map<String, Object> evaluate(Map<String, Object> facts, RuleSet.RuleListener listener,
+                                         DecisionTracer tracer, String tenant) {
+        Engine.Scratch s = engine.acquire();
+        DecisionTracer.Recorder trace = null;
+        boolean failed = true;
+        try {
+            s.env.putAll(facts);
+            if (tracer != null && (trace = tracer.begin(tenant, facts, rules, s.env)) != null) {
+                listener = RuleSet.RuleListener.both(listener, trace);
+            }
+            rules.apply(s.env, listener, s.assigned, s.eval);
+            Map<String, Object> out = new LinkedHashMap<>();
+            for (int t = s.assigned.nextSetBit(0); t >= 0; t = s.assigned.nextSetBit(t + 1)) {
+                out.put(targetNames[t], Expr.getDeep(s.env, rules.targetPath(t)));
+            }
+            failed = false;
+            return out;
+        } finally {
+            if (trace != null) trace.end(failed);
+            s.release();
+        }
+    }
+
+    /** Valor final de {@code target} (o del hecho, si ninguna regla lo asigna) sin armar el mapa de decisiones. */
+    public Object decide(Map<String, Object> facts, String target) {
+        int id = rules.targetId(target);
+        Engine.Scratch s = engine.acquire();
+        try {
+            s.env.putAll(facts);
+            rules.apply(s.env, null, s.assigned, s.eval);
+            // una ruta que no es target (la da el llamador) se parte aquí: no se interna en la tabla del programa
+            return id >= 0 ? Expr.getDeep(s.env, rules.targetPath(id)) : Expr.getDeep(s.env, target);
+        } finally {
+            s.release();
+        }
+    }
+
+    // ===== tests =====
+    /** Igual que {@link #runTest} para cualquier caso: un test o una fila de tabla. */
+    public boolean runCase(int k, TestReporter reporter, RuleSet.RuleListener listener) {
+        if (k < tests.size()) return runTest(k, reporter, listener);
+        int t = tableOf(k);
+        Engine.Scratch s = engine.acquire();
+        try {
+            return runRow(t, k - rowStart[t], s, reporter, listener);
+        } finally {
+            s.release();
+        }
+    }
+
+    /**
+     * Corre el test {@code i}: carga los givens, aplica las reglas y valida los expects
+     * (cada uno va a {@code reporter.expectResult}). No emite testStarted/testFinished.
+     * Los givens que comparte con otros tests se cargan de una instantánea (ver {@link Fixtures}).
+     * Lanza {@link EvaluationLimitException} si el test supera los límites del motor.
+     */
+    public boolean runTest(int i, TestReporter reporter, RuleSet.RuleListener listener) {
+        Engine.Scratch s = engine.acquire();
+        try {
+            return fixtures.run(i, s, reporter, listener);
+        } finally {
+            s.release();
+        }
+    }
+
+    /**
+     * Corre todos los tests en orden emitiendo cada evento a {@code reporter} apenas ocurre.
+     * Cancelación cooperativa: si el hilo es interrumpido se detiene antes del siguiente test.
+     */
+    public void runTests(TestReporter reporter, Metrics metrics, Coverage coverage) {
+        RuleSet.RuleListener probe = RuleSet.RuleListener.both(metrics.watch(rules), JfrEvents.ruleSampler());
+        if (coverage != null) probe = RuleSet.RuleListener.both(probe, coverage.watch(rules));
+        RuleSet.RuleListener listener = RuleSet.RuleListener.both(reporter::ruleApplied, probe);
+
+        reporter.runStarted(cases());
+        int passed = runCases(0, cases(), reporter, listener, metrics);
+        reporter.runFinished(passed, cases() - passed);
+    }
+
+    /**
+     * Corre los casos {@code from..to-1} en orden con los eventos testStarted/testFinished de cada uno
+     * (sin runStarted/runFinished); {@code listener} recibe las reglas aplicadas. Devuelve cuántos pasaron.
+     * Un error al evaluar un caso lo hace fallar a él solo. Se detiene si el hilo es interrumpido.
+     */
+    public int runCases(int from, int to, TestReporter reporter, RuleSet.RuleListener listener, Metrics metrics) {
+        int passed = 0, k = from;
+        for (; k < Math.min(to, tests.size()); k++) {
+            if (Thread.currentThread().isInterrupted()) throw new CancellationException("Ejecución cancelada");
+            if (report(tests.get(k).name(), -1, k, null, reporter, listener, metrics)) passed++;
+        }
+        // las filas se expanden por lotes: un estado de evaluación por lote, nada guardado por fila
+        while (k < to) {
+            if (Thread.currentThread().isInterrupted()) throw new CancellationException("Ejecución cancelada");
+            int t = tableOf(k), first = k - rowStart[t];
+            int last = Math.min(to - rowStart[t], Math.min(tables.get(t).rows(), first + ROW_BATCH));
+            Engine.Scratch s = engine.acquire();
+            try {
+                for (int r = first; r < last; r++) {
+                    if (r > first) s.rearm(engine.limits());
+                    if (report(tables.get(t).rowName(r), t, r, s, reporter, listener, metrics)) passed++;
+                }
+            } finally {
+                s.release();
+            }
+            k = rowStart[t] + last;
+        }
+        return passed;
+    }
+
+    /** Corre un test ({@code table} < 0) o una fila con los eventos testStarted/testFinished, métricas y JFR. */
+    private boolean report(String name, int table, int i, Engine.Scratch s, TestReporter reporter,
+                           RuleSet.RuleListener listener, Metrics metrics) {
+        long tTest = System.nanoTime();
+        JfrEvents.TestExecution ev = JfrEvents.active() ? new JfrEvents.TestExecution() : null;
+        if (ev != null) ev.begin();
+        reporter.testStarted(name);
+
+        boolean allOk;
+        try {
+            allOk = table < 0 ? runTest(i, reporter, listener) : runRow(table, i, s, reporter, listener);
+        } catch (RuntimeException ex) {   // límites del motor o una expresión que no evalúa: solo este caso falla
+            reporter.testError(name, ex);
+            allOk = false;
+        }
+
+        metrics.stopTest(tTest);
+        if (ev != null) ev.end();
+        if (ev != null && ev.shouldCommit()) {
+            ev.name = name;
+            ev.passed = allOk;
+            ev.commit();
+        }
+        reporter.testFinished(name, allOk, System.nanoTime() - tTest);
+        return allOk;
+    }
+
+    // ===== internos =====
+    private int tableOf(int k) {
+        int t = Arrays.binarySearch(rowStart, k);
+        t = t < 0 ? -t - 2 : t;
+        while (t + 1 < rowStart.length && rowStart[t + 1] == k) t++;   // tablas vacías
+        return t;
+    }
+
+    /** Fila {@code r} de la tabla {@code t}: celdas given al entorno, reglas y cada expect como {@code ruta == celda}. */
+    private boolean runRow(int t, int r, Engine.Scratch s, TestReporter reporter, RuleSet.RuleListener listener) {
+        TableNode table = tables.get(t);
+        String[][] paths = tablePaths[t];
+        int g = table.givens.length;
+        s.env.clear();
+        for (int c = 0; c < g; c++) Expr.putDeep(s.env, paths[c], table.cell(r, c));
+        rules.apply(s.env, listener, s.assigned, s.eval);
+        boolean allOk = true;
+        for (int c = g; c < paths.length; c++) {
+            Object want = table.cell(r, c);
+            boolean ok = Objects.equals(Expr.getDeep(s.env, paths[c]), want);
+            allOk &= ok;
+            reporter.expectResult(table.expects[c - g] + " == " + TableNode.literal(want), ok);
+        }
+        return allOk;
+    }
+
+    /**
+     * Givens y expects de un test ya compilados. Un error de tokenización o de profundidad se guarda
+     * y se lanza al llegar a esa expresión, en el mismo punto en que fallaría al interpretarla en orden.
+     */
+    static final class CompiledTest {
+        final List<String> givenText = new ArrayList<>();   // "clave=valor" recortados: identidad en el trie de Fixtures
+        final List<String[]> keys = new ArrayList<>();
+        final List<Object> values = new ArrayList<>();   // Expr o RuntimeException
+        final List<String> expectText;
+        final Object[] expects;
+
+        CompiledTest(Engine engine, Symbols symbols, Test t) {
+            for (String assign : t.givens()) {
+                for (String part : split(assign)) {
+                    String s = part.trim();
+                    if (s.isEmpty()) continue;
+                    String[] kv = s.split("=", 2);
+                    if (kv.length != 2) continue;
+                    givenText.add(kv[0].trim() + "=" + kv[1].trim());
+                    keys.add(symbols.path(kv[0].trim()));
+                    values.add(compile(engine, symbols, kv[1].trim()));
+                }
+            }
+            expectText = t.expects();
+            expects = new Object[expectText.size()];
+            for (int k = 0; k < expects.length; k++) expects[k] = compile(engine, symbols, expectText.get(k));
+        }
+
+        /** {@code s.env} ya tiene los primeros {@code from} givens; las reglas de {@code reuse} se repiten de {@code trace}. */
+        boolean run(RuleSet rules, Engine.Scratch s, int from, RuleSet.Trace trace, BitSet reuse,
+                    TestReporter reporter, RuleSet.RuleListener listener) {
+            // 1) cargar givens
+            given(s.env, from, keys.size(), s.eval);
+
+            // 2) aplicar solo la primera regla válida por target
+            rules.apply(s.env, listener, s.assigned, s.eval, trace, reuse);
+
+            // 3) validar expects
+            boolean allOk = true;
+            for (int k = 0; k < expects.length; k++) {
+                boolean ok = Expr.truthy(expr(expects[k]).eval(s.env, s.eval));
+                allOk &= ok;
+                reporter.expectResult(expectText.get(k), ok);
+            }
+            return allOk;
+        }
+
+        void given(Map<String, Object> env, int from, int to, Expr.ExprEval ev) {
+            for (int k = from; k < to; k++) Expr.putDeep(env, keys.get(k), expr(values.get(k)).eval(env, ev));
+        }
+
+        /** Asignaciones separadas por comas; una coma dentro de un string ("x,y") no separa. */
+        private static List<String> split(String assign) {
+            List<String> out = new ArrayList<>();
+            boolean quoted = false;
+            int from = 0;
+            for (int k = 0; k < assign.length(); k++) {
+                char c = assign.charAt(k);
+                if (quoted && c == '\\') k++;
+                else if (c == '"') quoted = !quoted;
+                else if (c == ',' && !quoted) { out.add(assign.substring(from, k)); from = k + 1; }
+            }
+            out.add(assign.substring(from));
+            return out;
+        }
+
+        private static Object compile(Engine engine, Symbols symbols, String source) {
+            try {
+                return engine.checkDepth(Expr.compile(source, symbols));
+            } catch (RuntimeException ex) {
+                return ex;
+            }
+        }
+
+        private static Expr expr(Object compiled) {
+            if (compiled instanceof RuntimeException ex) throw ex;
+            return (Expr) compiled;
+        }
+    }
+}
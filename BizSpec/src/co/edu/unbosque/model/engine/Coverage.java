@@ -0,0 +1,119 @@
+package co.edu.unbosque.model.engine;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import co.edu.unbosque.model.engine.RuleSet.Rule;
+
+/**
+ * Cobertura de reglas para suites grandes:
+ * - Cada hilo marca bits (indexados por id de regla) en sus propios BitSet, sin sincronizar
+ * - {@link #report(RuleSet)} une los BitSet de todos los hilos al final de la corrida
+ * - Una instancia sirve para varios programas a la vez (p. ej. los archivos de una suite en paralelo):
+ *   cada RuleSet tiene sus propios bits y su propio reporte
+ * Reporta reglas nunca verdaderas, nunca aplicadas y siempre sombreadas
+ * (alcanzadas solo cuando una regla anterior ya había asignado su target).
+ */
+public final class Coverage {
+
+    private final ConcurrentHashMap<RuleSet, State> states = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<RuleSet> order = new ConcurrentLinkedQueue<>();
+
+    /** Listener del hilo actual para las reglas de {@code rs}. */
+    public RuleSet.RuleListener watch(RuleSet rs) {
+        State s = states.get(rs);
+        if (s == null) {
+            s = states.computeIfAbsent(rs, k -> {
+                order.add(k);
+                return new State(k);
+            });
+        }
+        return s.local.get();
+    }
+
+    /** Programas observados, en el orden en que se empezaron a observar. */
+    public List<RuleSet> programs() { return List.copyOf(order); }
+
+    public record Report(int rules, List<Rule> neverMatched, List<Rule> neverApplied, List<Rule> alwaysShadowed) {
+        @Override
+        public String toString() {
+            StringBuilder out = new StringBuilder("== Cobertura de reglas (" + rules + " reglas) ==\n");
+            section(out, "Nunca verdaderas", neverMatched);
+            section(out, "Nunca aplicadas", neverApplied);
+            section(out, "Siempre sombreadas", alwaysShadowed);
+            return out.toString();
+        }
+
+        private static void section(StringBuilder out, String title, List<Rule> rs) {
+            out.append(title).append(" (").append(rs.size()).append(")");
+            if (rs.isEmpty()) { out.append("\n"); return; }
+            out.append(":\n");
+            for (Rule r : rs) {
+                out.append("  \"").append(r.name()).append("\" → ").append(r.target())
+                   .append(" [L").append(r.line()).append(" C").append(r.col()).append("]\n");
+            }
+        }
+    }
+
+    /** Reporte del único programa observado (vacío si no hubo ninguno). */
+    public Report report() {
+        List<RuleSet> all = programs();
+        if (all.isEmpty()) return new Report(0, List.of(), List.of(), List.of());
+        if (all.size() > 1) throw new IllegalStateException("Cobertura de " + all.size() + " programas: usar report(RuleSet)");
+        return report(all.get(0));
+    }
+
+    /** Reporte de las reglas de {@code rs}; si nunca se observó, ninguna regla quedó cubierta. */
+    public Report report(RuleSet rs) {
+        State s = states.get(rs);
+        BitSet evaluated = new BitSet(), matched = new BitSet(), applied = new BitSet(), shadowed = new BitSet();
+        for (Bits b : s == null ? List.<Bits>of() : s.all) {
+            evaluated.or(b.evaluated);
+            matched.or(b.matched);
+            applied.or(b.applied);
+            shadowed.or(b.shadowed);
+        }
+        evaluated.or(matched);
+        List<Rule> neverMatched = new ArrayList<>(), neverApplied = new ArrayList<>(), alwaysShadowed = new ArrayList<>();
+        for (Rule r : rs.rules()) {
+            int id = r.id();
+            if (!matched.get(id)) neverMatched.add(r);
+            if (!applied.get(id)) neverApplied.add(r);
+            if (shadowed.get(id) && !evaluated.get(id)) alwaysShadowed.add(r);
+        }
+        return new Report(rs.rules().size(), Collections.unmodifiableList(neverMatched),
+                Collections.unmodifiableList(neverApplied), Collections.unmodifiableList(alwaysShadowed));
+    }
+
+    // ===== internos =====
+    private static final class State {
+        final ConcurrentLinkedQueue<Bits> all = new ConcurrentLinkedQueue<>();
+        final ThreadLocal<Bits> local;
+
+        State(RuleSet rs) {
+            int n = rs.rules().size();
+            this.local = ThreadLocal.withInitial(() -> {
+                Bits b = new Bits(n);
+                all.add(b);
+                return b;
+            });
+        }
+    }
+
+    /** BitSets de un solo hilo (un bit por evento); se leen en {@link #report()} cuando la corrida terminó. */
+    private static final class Bits implements RuleSet.RuleListener {
+        final BitSet evaluated, matched, applied, shadowed;
+
+        Bits(int n) {
+            evaluated = new BitSet(n); matched = new BitSet(n); applied = new BitSet(n); shadowed = new BitSet(n);
+        }
+
+        @Override public void applied(Rule r, Object value) { applied.set(r.id()); }
+        @Override public void evaluated(Rule r, boolean result) {
+            if (result) matched.set(r.id());
+            else evaluated.set(r.id());
+        }
+        @Override public void shadowed(Rule r) { shadowed.set(r.id()); }
+    }
+}
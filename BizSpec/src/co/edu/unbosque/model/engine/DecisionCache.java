@@ -0,0 +1,226 @@
+package co.edu.unbosque.model.engine;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caché de decisiones delante del motor de reglas:
+ * - Clave por target: solo los valores de las rutas de las que depende (ver {@link RuleSet#slotsOf}), leídos
+ *   con las rutas ya partidas; los mapas anidados se copian solo al guardar, no al buscar
+ * - Acotada por tamaño y por TTL; expulsa por segunda oportunidad (CLOCK): en orden de inserción,
+ *   pero una entrada con hits desde la última pasada vuelve al final de la cola en vez de salir
+ * - Concurrente; contadores de hits/misses/expulsiones
+ * - Calcula con {@link CompiledProgram#evaluate}: mismo estado por hilo y mismos {@link Limits} del motor;
+ *   una decisión que supera un límite lanza la excepción y no se guarda
+ * - Sobre un {@link ProgramRegistry}, cada entrada vale solo para la versión publicada con que se calculó;
+ *   sobre un programa fijo, {@link #reload} invalida todo lo calculado con el anterior
+ */
+public final class DecisionCache {
+
+    public record Stats(long hits, long misses, long evictions, int size) {
+        @Override
+        public String toString() {
+            return "Caché: " + hits + " hits, " + misses + " misses, " + evictions + " expulsiones, " + size + " entradas";
+        }
+    }
+
+    /** Target (su id en el programa) y valores de sus slots; en el mapa, con los mapas anidados ya copiados. */
+    private static final class Key {
+        final int target;
+        final Object[] values;
+        final int hash;
+
+        Key(int target, Object[] values) {
+            this.target = target;
+            this.values = values;
+            this.hash = 31 * target + Arrays.hashCode(values);
+        }
+
+        @Override public int hashCode() { return hash; }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key k && k.hash == hash && k.target == target && Arrays.equals(k.values, values);
+        }
+    }
+
+    /** Programa con que se decide y su versión (la del registro, o la generación de {@link #reload}). */
+    private record Source(CompiledProgram program, long version) {}
+
+    private static final class Entry {
+        final Key key;
+        final long version;
+        final Object value;
+        final long createdAt;
+        volatile boolean referenced;   // hubo un hit desde que la expulsión pasó por ella
+        Entry(Key key, long version, Object value, long createdAt) {
+            this.key = key; this.version = version; this.value = value; this.createdAt = createdAt;
+        }
+    }
+
+    /** TTL a partir del cual no se vence: más de lo que mide {@link System#nanoTime} sin dar la vuelta. */
+    private static final Duration FOREVER = Duration.ofNanos(Long.MAX_VALUE);
+
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final ProgramRegistry registry;
+    private final String tenant;
+    private final ConcurrentHashMap<Key, Entry> map = new ConcurrentHashMap<>();
+    // orden de inserción (con las segundas oportunidades al final); puede tener entradas que ya salieron
+    // del mapa (reemplazadas o vencidas), por eso se acota por su propio tamaño y no solo por el del mapa
+    private final ConcurrentLinkedQueue<Entry> order = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private volatile Source fixed;
+
+    /** Caché sobre un programa fijo; {@link #reload} lo cambia. */
+    public DecisionCache(CompiledProgram program, int maxEntries, Duration ttl) {
+        this(null, null, maxEntries, ttl);
+        this.fixed = new Source(Objects.requireNonNull(program), 0);
+    }
+
+    /** Caché de las decisiones de {@code tenant}: sigue sola los hot swaps del registro. */
+    public DecisionCache(ProgramRegistry registry, String tenant, int maxEntries, Duration ttl) {
+        if (maxEntries <= 0) throw new IllegalArgumentException("maxEntries debe ser > 0");
+        this.registry = registry;
+        this.tenant = tenant;
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttl == null || ttl.compareTo(FOREVER) >= 0 ? Long.MAX_VALUE : Math.max(0, ttl.toNanos());
+    }
+
+    /** Valor final de {@code target} para los hechos dados. No modifica {@code facts}. */
+    public Object decide(String target, Map<String,Object> facts) {
+        ProgramRegistry.Lease lease = registry == null ? null : registry.acquire(tenant);
+        try {
+            Source src = lease == null ? fixed : new Source(lease.program(), lease.version());
+            RuleSet rs = src.program.rules();
+            int id = rs.targetId(target);
+            if (id < 0) return Expr.getDeep(facts, target);   // ruta del llamador: no se interna en la tabla del programa
+            Entry e = lookup(src, keyOf(rs, id, facts, false));
+            if (e != null) { hits.increment(); return e.value; }
+            misses.increment();
+            return fill(src, facts).get(target);
+        } finally {
+            if (lease != null) lease.close();
+        }
+    }
+
+    /** Valores finales de todos los targets; una sola pasada de reglas si falta alguno. */
+    public Map<String,Object> decide(Map<String,Object> facts) {
+        ProgramRegistry.Lease lease = registry == null ? null : registry.acquire(tenant);
+        try {
+            Source src = lease == null ? fixed : new Source(lease.program(), lease.version());
+            RuleSet rs = src.program.rules();
+            Map<String,Object> out = new LinkedHashMap<>();
+            int id = 0;
+            for (String target : rs.targets()) {
+                Entry e = lookup(src, keyOf(rs, id++, facts, false));
+                if (e == null) {
+                    misses.increment();
+                    return fill(src, facts);
+                }
+                out.put(target, e.value);
+            }
+            hits.increment();
+            return out;
+        } finally {
+            if (lease != null) lease.close();
+        }
+    }
+
+    /** Cambia el programa e invalida todas las decisiones guardadas; sobre un registro no hace falta. */
+    public void reload(CompiledProgram program) {
+        if (registry != null) throw new IllegalStateException("La caché sigue las versiones del registro");
+        this.fixed = new Source(Objects.requireNonNull(program), fixed.version + 1);
+        invalidate();
+    }
+
+    public void invalidate() {
+        map.clear();
+        order.clear();
+        queued.set(0);
+    }
+
+    public Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(), map.size());
+    }
+
+    // ===== internos =====
+    private Entry lookup(Source src, Key key) {
+        Entry e = map.get(key);
+        if (e == null) return null;
+        if (e.version != src.version || (ttlNanos != Long.MAX_VALUE && System.nanoTime() - e.createdAt > ttlNanos)) {
+            if (map.remove(key, e)) evictions.increment();
+            return null;
+        }
+        if (!e.referenced) e.referenced = true;
+        return e;
+    }
+
+    private Map<String,Object> fill(Source src, Map<String,Object> facts) {
+        RuleSet rs = src.program.rules();
+        Map<String,Object> assigned = src.program.evaluate(facts);
+        long now = System.nanoTime();
+        Map<String,Object> out = new LinkedHashMap<>();
+        int id = 0;
+        for (String target : rs.targets()) {
+            // un target que ninguna regla asignó conserva el valor de los hechos
+            Object value = assigned.containsKey(target) ? assigned.get(target) : Expr.getDeep(facts, rs.targetPath(id));
+            out.put(target, value);
+            Key key = keyOf(rs, id++, facts, true);
+            Entry e = new Entry(key, src.version, value, now);
+            map.put(key, e);
+            order.add(e);
+            queued.incrementAndGet();
+        }
+        evictOverflow();
+        return out;
+    }
+
+    /**
+     * Saca las más antiguas mientras el mapa pase del máximo o la cola tenga más del doble:
+     * cada entrada del mapa está en la cola, así que ninguno de los dos crece sin límite.
+     * Una entrada vigente con hits vuelve al final sin su marca; tras una vuelta entera de la cola
+     * sin encontrar otra, sale la más antigua aunque tenga hits.
+     */
+    private void evictOverflow() {
+        int chances = queued.get();
+        while (map.size() > maxEntries || queued.get() > 2 * maxEntries) {
+            Entry oldest = order.poll();
+            if (oldest == null) break;
+            if (oldest.referenced && chances-- > 0 && map.get(oldest.key) == oldest) {
+                oldest.referenced = false;
+                order.add(oldest);
+                continue;
+            }
+            queued.decrementAndGet();
+            if (map.remove(oldest.key, oldest)) evictions.increment();
+        }
+    }
+
+    /** Clave del target {@code id} para {@code facts}; {@code copy} para guardarla (copia los mapas anidados). */
+    private static Key keyOf(RuleSet rs, int id, Map<String,Object> facts, boolean copy) {
+        String[][] slots = rs.slotPaths(id);
+        Object[] values = new Object[slots.length];
+        for (int i = 0; i < slots.length; i++) {
+            Object v = Expr.getDeep(facts, slots[i]);
+            values[i] = copy ? snapshot(v) : v;
+        }
+        return new Key(id, values);
+    }
+
+    /** Copia los mapas anidados para que la clave no cambie si el llamador muta sus hechos. */
+    @SuppressWarnings("unchecked")
+    private static Object snapshot(Object v) {
+        if (!(v instanceof Map)) return v;
+        Map<String,Object> copy = new LinkedHashMap<>();
+        for (Map.Entry<String,Object> e : ((Map<String,Object>) v).entrySet()) copy.put(e.getKey(), snapshot(e.getValue()));
+        return copy;
+    }
+}
@@ -0,0 +1,403 @@
+package co.edu.unbosque.model.engine;
+
+import java.lang.invoke.VarHandle;
+import java.lang.ref.WeakReference;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+import co.edu.unbosque.model.engine.RuleSet.Rule;
+
+/**
+ * Traza muestreada de decisiones en producción:
+ * - Un {@link Sampler} elige qué decisiones se trazan (por tasa, tenant o predicado sobre los hechos);
+ *   sin tracer, o si el sampler dice que no, la decisión solo paga un if
+ * - Cada decisión trazada escribe eventos de un long (regla, resultado de la condición, valores leídos)
+ *   en un anillo del hilo: sin locks ni asignaciones, los más viejos se pisan
+ * - {@link #dump()} copia los anillos desde cualquier hilo y decodifica las decisiones completas
+ *   a nombres de regla, posiciones en el fuente y valores
+ * Un programa trazado queda referenciado mientras algún anillo tenga eventos suyos; al registrar uno nuevo
+ * y en cada dump se sueltan los que ya no aparecen (p. ej. versiones retiradas). El anillo de un hilo
+ * terminado se descarta cuando otro hilo empieza a trazar o después de decodificarlo en un dump.
+ * Los tenants trazados quedan referenciados por el tracer para poder decodificar.
+ */
+public final class DecisionTracer {
+
+    /** Elige las decisiones a trazar; se llama en el hilo que evalúa, antes de aplicar las reglas. */
+    @FunctionalInterface
+    public interface Sampler {
+        boolean sample(String tenant, Map<String, Object> facts);
+
+        /** Una de cada {@code n} decisiones, al azar. */
+        static Sampler rate(int n) {
+            if (n <= 1) return (tenant, facts) -> true;
+            return (tenant, facts) -> ThreadLocalRandom.current().nextInt(n) == 0;
+        }
+
+        static Sampler tenants(String... ids) {
+            Set<String> set = Set.of(ids);
+            return (tenant, facts) -> tenant != null && set.contains(tenant);
+        }
+
+        static Sampler when(Predicate<Map<String, Object>> facts) {
+            return (tenant, f) -> facts.test(f);
+        }
+
+        default Sampler and(Sampler other) {
+            return (tenant, facts) -> sample(tenant, facts) && other.sample(tenant, facts);
+        }
+
+        default Sampler or(Sampler other) {
+            return (tenant, facts) -> sample(tenant, facts) || other.sample(tenant, facts);
+        }
+    }
+
+    /** Eventos por hilo si no se indica otra capacidad. */
+    public static final int DEFAULT_CAPACITY = 1 << 14;
+
+    // ===== codificación: tipo (4 bits) | etiqueta del valor (4) | id (24) | carga (32) =====
+    private static final int BEGIN = 1, EVALUATED = 2, SHADOWED = 3, APPLIED = 4, READ = 5, END = 6;
+    private static final int NULL = 0, FALSE = 1, TRUE = 2, FLOAT = 3, REF = 4;
+    private static final int ID_MASK = (1 << 24) - 1;
+
+    private static long event(int kind, int tag, int id, int payload) {
+        return (long) kind << 60 | (long) tag << 56 | (long) (id & ID_MASK) << 32 | (payload & 0xFFFFFFFFL);
+    }
+    private static int kind(long e) { return (int) (e >>> 60); }
+    private static int tag(long e) { return (int) (e >>> 56) & 0xF; }
+    private static int id(long e) { return (int) (e >>> 32) & ID_MASK; }
+    private static int payload(long e) { return (int) e; }
+
+    /** Paso de una decisión: una regla con lo que hizo y los valores de las rutas que leyó. */
+    public record Step(Rule rule, String outcome, Map<String, Object> reads, Object value) {
+        @Override
+        public String toString() {
+            StringBuilder out = new StringBuilder("  ").append(switch (outcome) {
+                case "APPLIED" -> "✓";
+                case "FALSE" -> "✗";
+                default -> "·";
+            });
+            out.append(" rule \"").append(rule.name()).append("\" [L").append(rule.line()).append(" C").append(rule.col()).append("] ");
+            out.append(switch (outcome) {
+                case "APPLIED" -> "aplicada → " + rule.target() + " = " + Expr.stringify(value);
+                case "FALSE" -> "falsa";
+                case "TRUE" -> "verdadera";
+                default -> "sombreada";
+            });
+            for (Map.Entry<String, Object> r : reads.entrySet()) {
+                out.append("\n      ").append(r.getKey()).append(" = ").append(Expr.stringify(r.getValue()));
+            }
+            return out.toString();
+        }
+    }
+
+    /** Decisión trazada; {@code failed}: terminó con una excepción (p. ej. un límite superado). */
+    public record Decision(String thread, String tenant, List<Step> steps, boolean failed) {
+        @Override
+        public String toString() {
+            StringBuilder out = new StringBuilder("Decisión [").append(tenant == null ? "-" : tenant)
+                    .append("] hilo ").append(thread).append(failed ? " → ERROR" : "").append("\n");
+            for (Step s : steps) out.append(s).append("\n");
+            return out.toString();
+        }
+    }
+
+    private final Sampler sampler;
+    private final int capacity;
+    private final ConcurrentLinkedQueue<Ring> rings = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<Ring> local;
+    private final ConcurrentHashMap<RuleSet, Program> programs = new ConcurrentHashMap<>();
+    private final Map<Integer, Program> programIds = new HashMap<>();   // por id de los eventos BEGIN; bajo el lock del tracer
+    private int nextProgram;
+    private final ConcurrentHashMap<String, Integer> tenantIds = new ConcurrentHashMap<>();
+    private final List<String> tenantNames = new ArrayList<>();
+
+    public DecisionTracer(Sampler sampler) { this(sampler, DEFAULT_CAPACITY); }
+
+    /** {@code capacity}: eventos por hilo; se redondea a potencia de 2. */
+    public DecisionTracer(Sampler sampler, int capacity) {
+        this.sampler = sampler;
+        this.capacity = Integer.highestOneBit(Math.max(64, capacity) - 1) << 1;
+        this.local = ThreadLocal.withInitial(() -> {
+            Ring r = new Ring(Thread.currentThread(), this.capacity);
+            rings.removeIf(x -> !x.alive());
+            rings.add(r);
+            return r;
+        });
+    }
+
+    /**
+     * Registro de la decisión que empieza si el sampler la elige, o null. {@code env} es el entorno
+     * sobre el que se aplican las reglas: los valores leídos se toman de ahí al evaluar cada condición.
+     */
+    Recorder begin(String tenant, Map<String, Object> facts, RuleSet rules, Map<String, Object> env) {
+        if (!sampler.sample(tenant, facts)) return null;
+        Ring ring = local.get();
+        if (ring.recorder.busy) return null;   // una decisión anidada (desde un listener) no se traza
+        Program p = programs.get(rules);
+        if (p == null) p = register(rules);
+        ring.put(event(BEGIN, 0, p.id, tenantId(tenant)), null);
+        return ring.recorder.start(p, env);
+    }
+
+    /**
+     * Decisiones completas que siguen en los anillos, hilo por hilo y de la más vieja a la más nueva.
+     * Las de un hilo que ya terminó se devuelven por última vez.
+     */
+    public List<Decision> dump() {
+        List<Decision> out = new ArrayList<>();
+        for (Ring r : rings) {
+            decode(r, out);
+            if (!r.alive()) rings.remove(r);
+        }
+        releasePrograms();
+        return out;
+    }
+
+    /** Vacía los anillos; las decisiones en curso se descartan al decodificar. */
+    public void clear() {
+        for (Ring r : rings) r.floor.set(r.head.get());
+    }
+
+    // ===== internos =====
+    private synchronized Program register(RuleSet rules) {
+        Program p = programs.get(rules);
+        if (p != null) return p;
+        releasePrograms();
+        while (programIds.containsKey(nextProgram)) nextProgram = (nextProgram + 1) & ID_MASK;
+        p = new Program(nextProgram, rules);
+        nextProgram = (nextProgram + 1) & ID_MASK;
+        programIds.put(p.id, p);
+        programs.put(rules, p);
+        return p;
+    }
+
+    /**
+     * Suelta los programas sin un BEGIN en la parte decodificable de algún anillo. Si se vuelven a trazar
+     * se registran con otro id; una decisión que empieza justo mientras se suelta su programa se pierde.
+     */
+    private synchronized void releasePrograms() {
+        if (programIds.isEmpty()) return;
+        Set<Integer> live = new HashSet<>();
+        for (Ring r : rings) {
+            long end = r.head.get();
+            for (long k = Math.max(r.floor.get(), end - capacity); k < end; k++) {
+                long e = r.events[(int) k & r.mask];
+                if (kind(e) == BEGIN) live.add(id(e));
+            }
+        }
+        for (Iterator<Program> it = programIds.values().iterator(); it.hasNext(); ) {
+            Program p = it.next();
+            if (live.contains(p.id)) continue;
+            it.remove();
+            programs.remove(p.rules, p);
+        }
+    }
+
+    private int tenantId(String tenant) {
+        if (tenant == null) return -1;
+        Integer id = tenantIds.get(tenant);
+        return id != null ? id : registerTenant(tenant);
+    }
+
+    private synchronized int registerTenant(String tenant) {
+        return tenantIds.computeIfAbsent(tenant, k -> {
+            tenantNames.add(k);
+            return tenantNames.size() - 1;
+        });
+    }
+
+    /** Rutas leídas por cada regla: primero las de la condición, después las del valor. */
+    private static final class Program {
+        final int id;
+        final RuleSet rules;
+        final String[][][] reads;   // por regla: segmentos de cada ruta
+        final String[][] names;     // por regla: cada ruta como se muestra
+        final int[] conditionReads;
+
+        Program(int id, RuleSet rules) {
+            this.id = id;
+            this.rules = rules;
+            int n = rules.rules().size();
+            this.reads = new String[n][][];
+            this.names = new String[n][];
+            this.conditionReads = new int[n];
+            for (Rule r : rules.rules()) {
+                Set<String> paths = new LinkedHashSet<>(r.condition().reads());
+                conditionReads[r.id()] = paths.size();
+                paths.addAll(r.value().reads());
+                reads[r.id()] = new String[paths.size()][];
+                names[r.id()] = new String[paths.size()];
+                int k = 0;
+                for (String path : paths) {
+                    String[] segments = rules.symbols().path(path);
+                    reads[r.id()][k] = segments;
+                    names[r.id()][k++] = String.join(".", segments);
+                }
+            }
+        }
+    }
+
+    /**
+     * Anillo de un hilo. Solo ese hilo escribe; {@code head} (eventos escritos) se publica después de cada
+     * evento, así que quien lee sabe qué posiciones pueden haberse pisado mientras copiaba.
+     */
+    private static final class Ring {
+        final WeakReference<Thread> owner;
+        final String thread;
+        final long[] events;
+        final Object[] refs;   // valor de los eventos con etiqueta REF, en la misma posición
+        final int mask;
+        final AtomicLong head = new AtomicLong();
+        final AtomicLong floor = new AtomicLong();   // posición desde la que se decodifica (clear)
+        final Recorder recorder = new Recorder(this);
+
+        Ring(Thread owner, int capacity) {
+            this.owner = new WeakReference<>(owner);
+            this.thread = owner.getName();
+            this.events = new long[capacity];
+            this.refs = new Object[capacity];
+            this.mask = capacity - 1;
+        }
+
+        boolean alive() {
+            Thread t = owner.get();
+            return t != null && t.isAlive();
+        }
+
+        void put(long event, Object ref) {
+            long h = head.get();
+            int i = (int) h & mask;
+            refs[i] = ref;
+            events[i] = event;
+            head.lazySet(h + 1);
+        }
+
+        void value(int kind, int id, Object v) {
+            if (v == null) put(event(kind, NULL, id, 0), null);
+            else if (v instanceof Boolean b) put(event(kind, b ? TRUE : FALSE, id, 0), null);
+            else if (v instanceof Double d && (float) (double) d == d) put(event(kind, FLOAT, id, Float.floatToRawIntBits((float) (double) d)), null);
+            else put(event(kind, REF, id, 0), v);
+        }
+    }
+
+    /** Listener de la decisión en curso de un hilo; se reutiliza entre decisiones. */
+    static final class Recorder implements RuleSet.RuleListener {
+        private final Ring ring;
+        private Program program;
+        private Map<String, Object> env;
+        private boolean busy;
+
+        private Recorder(Ring ring) { this.ring = ring; }
+
+        private Recorder start(Program program, Map<String, Object> env) {
+            this.program = program;
+            this.env = env;
+            this.busy = true;
+            return this;
+        }
+
+        @Override
+        public void evaluated(Rule rule, boolean result) {
+            ring.put(event(EVALUATED, result ? TRUE : FALSE, rule.id(), 0), null);
+            // la condición no modifica el entorno y el valor aún no se evaluó: lo que hay es lo que leen
+            String[][] reads = program.reads[rule.id()];
+            int n = result ? reads.length : program.conditionReads[rule.id()];
+            for (int k = 0; k < n; k++) ring.value(READ, k, Expr.getDeep(env, reads[k]));
+        }
+
+        @Override
+        public void applied(Rule rule, Object value) { ring.value(APPLIED, rule.id(), value); }
+
+        @Override
+        public void shadowed(Rule rule) { ring.put(event(SHADOWED, 0, rule.id(), 0), null); }
+
+        /** Cierra la decisión; {@code failed} si terminó con una excepción. */
+        void end(boolean failed) {
+            ring.put(event(END, failed ? TRUE : FALSE, 0, 0), null);
+            program = null;
+            env = null;
+            busy = false;
+        }
+    }
+
+    /** Copia el anillo y agrega a {@code out} las decisiones completas que no se pisaron durante la copia. */
+    private void decode(Ring r, List<Decision> out) {
+        long end = r.head.get();
+        long from = Math.max(r.floor.get(), end - capacity);
+        int n = (int) (end - from);
+        long[] events = new long[n];
+        Object[] refs = new Object[n];
+        for (int k = 0; k < n; k++) {
+            int i = (int) (from + k) & r.mask;
+            events[k] = r.events[i];
+            refs[k] = r.refs[i];
+        }
+        VarHandle.loadLoadFence();
+        // el escritor pudo avanzar mientras se copiaba: lo que quedó a menos de una vuelta de su cabeza
+        // actual (más el evento que estaba escribiendo) puede ser de una decisión posterior
+        long valid = r.head.get() + 1 - capacity;
+        int k = (int) Math.max(0, valid - from);
+
+        Program p = null;
+        String tenant = null;
+        List<Step> steps = null;
+        Rule rule = null;
+        Map<String, Object> reads = null;
+        boolean result = false;
+        for (; k < n; k++) {
+            long e = events[k];
+            int kind = kind(e);
+            if (kind == BEGIN) {
+                int program = id(e), t = payload(e);
+                synchronized (this) {
+                    p = programIds.get(program);
+                    tenant = t < 0 || t >= tenantNames.size() ? null : tenantNames.get(t);
+                }
+                steps = p == null ? null : new ArrayList<>();
+                rule = null;
+                continue;
+            }
+            if (steps == null) continue;   // restos de una decisión cuyo comienzo ya se pisó
+            switch (kind) {
+                case EVALUATED -> {
+                    rule = p.rules.rules().get(id(e));
+                    result = tag(e) == TRUE;
+                    reads = new LinkedHashMap<>();
+                    steps.add(new Step(rule, result ? "TRUE" : "FALSE", reads, null));
+                }
+                case READ -> {
+                    if (rule != null && id(e) < p.names[rule.id()].length) reads.put(p.names[rule.id()][id(e)], value(e, refs[k]));
+                }
+                case APPLIED -> {
+                    Rule applied = p.rules.rules().get(id(e));
+                    int last = steps.size() - 1;
+                    if (last >= 0 && steps.get(last).rule() == applied) {
+                        steps.set(last, new Step(applied, "APPLIED", steps.get(last).reads(), value(e, refs[k])));
+                    } else {
+                        steps.add(new Step(applied, "APPLIED", Map.of(), value(e, refs[k])));
+                    }
+                }
+                case SHADOWED -> steps.add(new Step(p.rules.rules().get(id(e)), "SHADOWED", Map.of(), null));
+                case END -> {
+                    out.add(new Decision(r.thread, tenant, Collections.unmodifiableList(steps), tag(e) == TRUE));
+                    steps = null;
+                }
+                default -> steps = null;
+            }
+        }
+    }
+
+    private static Object value(long e, Object ref) {
+        return switch (tag(e)) {
+            case TRUE -> Boolean.TRUE;
+            case FALSE -> Boolean.FALSE;
+            case FLOAT -> (double) Float.intBitsToFloat(payload(e));
+            case REF -> ref;
+            default -> null;
+        };
+    }
+}
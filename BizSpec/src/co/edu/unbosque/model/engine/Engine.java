@@ -0,0 +1,82 @@
+package co.edu.unbosque.model.engine;
+
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+
+import co.edu.unbosque.model.ast.BizNode;
+
+/**
+ * Motor BizSpec reutilizable y seguro entre hilos:
+ * - {@link #compile} produce un {@link CompiledProgram} inmutable que se comparte libremente
+ * - Cada hilo tiene su propio estado de evaluación (entorno, targets asignados, intérprete),
+ *   que se reutiliza entre evaluaciones en vez de crearse en cada una
+ * - Aplica sus {@link Limits} a cada decisión y a cada test
+ * - Con {@link Optimization#PRUNE} quita al compilar las reglas que nunca se aplican ({@link RuleAnalyzer})
+ * Una instancia sirve para cualquier cantidad de programas.
+ */
+public final class Engine {
+
+    /** Optimización al compilar; opcional porque cambia los eventos por regla (métricas, cobertura). */
+    public enum Optimization { NONE, PRUNE }
+
+    private final Limits limits;
+    private final Optimization optimization;
+    private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+
+    public Engine() { this(Limits.DEFAULT); }
+
+    public Engine(Limits limits) { this(limits, Optimization.NONE); }
+
+    public Engine(Limits limits, Optimization optimization) {
+        this.limits = limits;
+        this.optimization = optimization;
+    }
+
+    public Limits limits() { return limits; }
+
+    public Optimization optimization() { return optimization; }
+
+    public CompiledProgram compile(String source) {
+        return compile(SourceLoader.load(source, Metrics.OFF).program());
+    }
+
+    public CompiledProgram compile(BizNode program) {
+        return new CompiledProgram(this, program);
+    }
+
+    /**
+     * Estado del hilo actual con el presupuesto de {@link #limits} reiniciado;
+     * si ya está en uso (un listener que vuelve a evaluar), uno nuevo.
+     */
+    Scratch acquire() {
+        Scratch s = scratch.get();
+        if (s.busy) s = new Scratch();
+        s.busy = true;
+        s.rearm(limits);
+        return s;
+    }
+
+    /** Falla si {@code e} anida más de lo permitido; así el intérprete recursivo nunca desborda la pila. */
+    Expr checkDepth(Expr e) {
+        if (limits.maxDepth() > 0 && e.depth() > limits.maxDepth()) {
+            throw new EvaluationLimitException(EvaluationLimitException.Kind.DEPTH, limits.maxDepth()).in(e.source);
+        }
+        return e;
+    }
+
+    /** Estado de evaluación de un hilo. */
+    static final class Scratch {
+        final LinkedHashMap<String, Object> env = new LinkedHashMap<>();
+        final BitSet assigned = new BitSet();
+        final Expr.ExprEval eval = new Expr.ExprEval();
+        boolean busy;
+
+        /** Presupuesto nuevo para la siguiente evaluación con el mismo estado (p. ej. la siguiente fila de un lote). */
+        void rearm(Limits limits) { eval.arm(limits); }
+
+        void release() {
+            env.clear();
+            busy = false;
+        }
+    }
+}
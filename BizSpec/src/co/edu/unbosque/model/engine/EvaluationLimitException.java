@@ -0,0 +1,45 @@
+package co.edu.unbosque.model.engine;
+
+import java.util.Locale;
+
+/** Una evaluación superó uno de los {@link Limits} de su {@link Engine}. */
+public final class EvaluationLimitException extends RuntimeException {
+
+    public enum Kind { DEPTH, OPERATIONS, DEADLINE }
+
+    private final Kind kind;
+    private final long limit;
+    private String where;
+
+    public EvaluationLimitException(Kind kind, long limit) {
+        super(null, null, false, false);
+        this.kind = kind;
+        this.limit = limit;
+    }
+
+    public Kind kind() { return kind; }
+
+    /** Valor del límite superado (nanosegundos para DEADLINE). */
+    public long limit() { return limit; }
+
+    /** Expresión donde ocurrió, si se conoce. */
+    public String where() { return where; }
+
+    /** Anota la expresión donde ocurrió (solo la primera vez, la más interna). */
+    EvaluationLimitException in(String expr) {
+        if (where == null) where = expr;
+        return this;
+    }
+
+    @Override
+    public String getMessage() {
+        String what = switch (kind) {
+            case DEPTH -> "expresión anidada más de " + limit + " niveles";
+            case OPERATIONS -> "más de " + limit + " operaciones";
+            case DEADLINE -> String.format(Locale.ROOT, "más de %.3f ms", limit / 1e6);
+        };
+        if (where == null) return "Límite excedido: " + what;
+        String expr = where.length() <= 80 ? where : where.substring(0, 77) + "...";
+        return "Límite excedido: " + what + " en '" + expr + "'";
+    }
+}
@@ -0,0 +1,414 @@
+package co.edu.unbosque.model.engine;
+
+import java.util.*;
+
+import co.edu.unbosque.model.lexer.Token;
+import co.edu.unbosque.model.lexer.TokenType;
+import co.edu.unbosque.model.lexer.Tokenizer;
+
+/**
+ * Expresión BizSpec pre-tokenizada:
+ * - Se tokeniza una sola vez y se evalúa muchas veces (inmutable, segura entre hilos)
+ * - Conoce las rutas de hechos (a.b.c) que lee, para el análisis estático
+ * - Identificadores y rutas salen de la {@link Symbols} del programa: al evaluar, cada lectura
+ *   recorre segmentos ya partidos e internados en vez de armar y volver a partir la ruta
+ */
+public final class Expr {
+
+    public final String source;
+    private final Token[] toks;
+    private final String[][] paths;   // por índice del primer IDENT de una ruta: sus segmentos
+    private final int[] pathEnd;      // índice del token que sigue a esa ruta
+    private final Set<String> reads;
+    private final int depth;
+
+    private Expr(String source, Token[] toks, Symbols symbols) {
+        this.source = source;
+        this.toks = toks;
+        this.paths = new String[toks.length][];
+        this.pathEnd = new int[toks.length];
+        this.reads = Collections.unmodifiableSet(resolvePaths(symbols));
+        this.depth = depth(toks);
+    }
+
+    public static Expr compile(String source) {
+        return compile(source, new Symbols());
+    }
+
+    /** Compila internando identificadores y rutas en {@code symbols} (la tabla del programa). */
+    public static Expr compile(String source, Symbols symbols) {
+        List<Token> all = new Tokenizer(source).tokenize();
+        ArrayList<Token> cleaned = new ArrayList<>();
+        for (Token t : all) {
+            if (t.type == TokenType.NEWLINE) continue;
+            cleaned.add(t.type == TokenType.IDENT ? new Token(t.type, symbols.intern(t.lexeme), t.line, t.col) : t);
+        }
+        return new Expr(source, cleaned.toArray(new Token[0]), symbols);
+    }
+
+    /** Tokens sin NEWLINE, terminados en EOF (para el análisis estático). */
+    Token[] tokens() { return toks; }
+
+    /** Rutas (a.b.c) leídas por la expresión. */
+    public Set<String> reads() { return reads; }
+
+    /** Anidamiento máximo (paréntesis más operadores unarios seguidos): acota la recursión del intérprete. */
+    public int depth() { return depth; }
+
+    public Object eval(Map<String,Object> env) {
+        return new ExprEval().run(this, env);
+    }
+
+    /** Igual que {@link #eval(Map)} reutilizando el intérprete {@code ev} (de un solo hilo, con sus límites). */
+    Object eval(Map<String,Object> env, ExprEval ev) {
+        try {
+            return ev.run(this, env);
+        } catch (EvaluationLimitException ex) {
+            throw ex.in(source);
+        }
+    }
+
+    private static int depth(Token[] toks) {
+        int max = 0, parens = 0, unary = 0;
+        for (Token t : toks) {
+            switch (t.type) {
+                case LPAREN: parens++; unary = 0; break;
+                case RPAREN: parens--; unary = 0; break;
+                case NOT: case MINUS: unary++; break;
+                default: unary = 0;
+            }
+            max = Math.max(max, parens + unary);
+        }
+        return max;
+    }
+
+    @Override
+    public String toString() { return source; }
+
+    /**
+     * Rutas leídas, y sus segmentos en {@link #paths}. Una ruta seguida de un '.' suelto no se resuelve:
+     * el intérprete la recorre token a token y falla ahí con el mismo mensaje de siempre.
+     */
+    private Set<String> resolvePaths(Symbols symbols) {
+        Set<String> out = new LinkedHashSet<>();
+        for (int i = 0; i < toks.length; i++) {
+            if (toks[i].type != TokenType.IDENT) continue;
+            int start = i;
+            StringBuilder sb = new StringBuilder(toks[i].lexeme);
+            while (i + 2 < toks.length && toks[i+1].type == TokenType.DOT && toks[i+2].type == TokenType.IDENT) {
+                sb.append('.').append(toks[i+2].lexeme);
+                i += 2;
+            }
+            String dotted = sb.toString();
+            out.add(dotted);
+            if (i + 1 < toks.length && toks[i+1].type == TokenType.DOT) continue;
+            paths[start] = symbols.path(dotted);
+            pathEnd[start] = i + 1;
+        }
+        return out;
+    }
+
+    // ===== Entorno jerárquico (a.b.c) =====
+    /**
+     * Escribe {@code value} en la ruta ya partida ({@link Symbols#path}), creando los mapas intermedios.
+     * Un mapa congelado ({@link #freeze}) en el camino se reemplaza por una copia antes de escribir.
+     */
+    @SuppressWarnings("unchecked")
+    static void putDeep(Map<String,Object> env, String[] path, Object value) {
+        Map<String,Object> cur = env;
+        for (int i = 0; i < path.length - 1; i++) {
+            Object nxt = cur.get(path[i]);
+            if (!(nxt instanceof Map) || nxt instanceof Frozen) {
+                nxt = nxt instanceof Frozen f ? new LinkedHashMap<String,Object>(f) : new LinkedHashMap<String,Object>();
+                cur.put(path[i], nxt);
+            }
+            cur = (Map<String, Object>) nxt;
+        }
+        cur.put(path[path.length - 1], value);
+    }
+
+    @SuppressWarnings("unchecked")
+    public static Object getDeep(Map<String,Object> env, String dotted) {
+        if (!dotted.contains(".")) return env.get(dotted);
+        String[] parts = dotted.split("\\.");
+        Object cur = env;
+        for (String p : parts) {
+            if (!(cur instanceof Map)) return null;
+            cur = ((Map<String,Object>)cur).get(p);
+            if (cur == null) return null;
+        }
+        return cur;
+    }
+
+    /** Igual que {@link #getDeep(Map, String)} con la ruta ya partida. */
+    @SuppressWarnings("unchecked")
+    static Object getDeep(Map<String,Object> env, String[] path) {
+        if (path.length == 1) return env.get(path[0]);
+        Object cur = env;
+        for (String p : path) {
+            if (!(cur instanceof Map)) return null;
+            cur = ((Map<String,Object>)cur).get(p);
+            if (cur == null) return null;
+        }
+        return cur;
+    }
+
+    /** Copia de solo lectura de {@code env}, con sus mapas anidados también congelados; se comparte entre hilos. */
+    @SuppressWarnings("unchecked")
+    static Map<String,Object> freeze(Map<String,Object> env) {
+        if (env instanceof Frozen) return env;
+        Map<String,Object> copy = new LinkedHashMap<>();
+        for (Map.Entry<String,Object> e : env.entrySet()) {
+            Object v = e.getValue();
+            copy.put(e.getKey(), v instanceof Map ? freeze((Map<String,Object>) v) : v);
+        }
+        return new Frozen(copy);
+    }
+
+    /** Mapa de una instantánea compartida: solo lectura. */
+    private static final class Frozen extends AbstractMap<String,Object> {
+        private final Map<String,Object> map;
+
+        Frozen(Map<String,Object> map) { this.map = map; }
+
+        @Override public Object get(Object key) { return map.get(key); }
+        @Override public boolean containsKey(Object key) { return map.containsKey(key); }
+        @Override public int size() { return map.size(); }
+        @Override public Set<Entry<String,Object>> entrySet() { return Collections.unmodifiableMap(map).entrySet(); }
+    }
+
+    /** Primer segmento de una ruta: "carrito.total" → "carrito". */
+    public static String root(String dotted) {
+        int dot = dotted.indexOf('.');
+        return dot < 0 ? dotted : dotted.substring(0, dot);
+    }
+
+    // ===== utils =====
+    public static boolean truthy(Object v) {
+        if (v == null) return false;
+        if (v instanceof Boolean b) return b;
+        if (v instanceof Number n) return n.doubleValue() != 0.0;
+        if (v instanceof String s) return !s.isEmpty();
+        return true;
+    }
+    public static String stringify(Object v) { return v == null ? "null" : v.toString(); }
+
+    // ===== Intérprete por descenso recursivo =====
+    /**
+     * Reutilizable entre evaluaciones, pero no entre hilos ni de forma reentrante.
+     * Cuenta operandos desde el último {@link #arm}; el presupuesto y el reloj se revisan
+     * solo cuando el contador alcanza {@code nextCheck} (cada {@value #CHECK_EVERY} a lo sumo).
+     */
+    static final class ExprEval {
+        private static final long CHECK_EVERY = 1024;
+
+        private Token[] t;
+        private String[][] paths;
+        private int[] pathEnd;
+        private Map<String,Object> env;
+        private int i;
+        private long ops, nextCheck = CHECK_EVERY, maxOps = Long.MAX_VALUE, deadline, timeout;
+
+        /** Reinicia el presupuesto para una nueva evaluación. */
+        void arm(Limits limits) {
+            ops = 0;
+            maxOps = limits.maxOps() > 0 ? limits.maxOps() : Long.MAX_VALUE;
+            timeout = Math.max(0, limits.timeoutNanos());
+            deadline = timeout > 0 ? System.nanoTime() + timeout : 0;
+            schedule();
+        }
+
+        private void tick() {
+            if (++ops >= nextCheck) check();
+        }
+
+        private void check() {
+            if (ops > maxOps) throw new EvaluationLimitException(EvaluationLimitException.Kind.OPERATIONS, maxOps);
+            if (timeout > 0 && System.nanoTime() - deadline > 0) {
+                throw new EvaluationLimitException(EvaluationLimitException.Kind.DEADLINE, timeout);
+            }
+            schedule();
+        }
+
+        private void schedule() {
+            long room = maxOps - ops;
+            nextCheck = ops + (room < CHECK_EVERY ? room + 1 : CHECK_EVERY);
+        }
+
+        Object run(Expr e, Map<String,Object> env) {
+            this.t = e.toks;
+            this.paths = e.paths;
+            this.pathEnd = e.pathEnd;
+            this.env = env;
+            this.i = 0;
+            try {
+                return parse();
+            } finally {
+                this.env = null;
+            }
+        }
+
+        private Token tok() { return t[i]; }
+        private boolean is(TokenType tp) { return tok().type == tp; }
+        private Token eat(TokenType tp, String msg) {
+            if (!is(tp)) throw new RuntimeException(msg + " en " + tok().type + " '" + tok().lexeme + "'");
+            return t[i++];
+        }
+        private boolean eatIf(TokenType tp) { if (is(tp)) { i++; return true; } return false; }
+
+        Object parse() {
+            Object v = or();
+            eat(TokenType.EOF, "Se esperaba EOF en expresión");
+            return v;
+        }
+
+        // or → and (OR and)*
+        private Object or() {
+            Object left = and();
+            while (eatIf(TokenType.OR)) {
+                Object right = and();
+                left = truthy(left) || truthy(right);
+            }
+            return left;
+        }
+
+        // and → cmp (AND cmp)*
+        private Object and() {
+            Object left = cmp();
+            while (eatIf(TokenType.AND)) {
+                Object right = cmp();
+                left = truthy(left) && truthy(right);
+            }
+            return left;
+        }
+
+        // cmp → add ((==|!=|>=|<=|>|<) add)*
+        private Object cmp() {
+            Object left = add();
+            while (true) {
+                if (eatIf(TokenType.EQEQ)) {
+                    Object right = add();
+                    left = Objects.equals(left, right);
+                } else if (eatIf(TokenType.NE)) {
+                    Object right = add();
+                    left = !Objects.equals(left, right);
+                } else if (eatIf(TokenType.GE)) {
+                    Object right = add();
+                    left = compare(left, right) >= 0;
+                } else if (eatIf(TokenType.LE)) {
+                    Object right = add();
+                    left = compare(left, right) <= 0;
+                } else if (eatIf(TokenType.GT)) {
+                    Object right = add();
+                    left = compare(left, right) > 0;
+                } else if (eatIf(TokenType.LT)) {
+                    Object right = add();
+                    left = compare(left, right) < 0;
+                } else break;
+            }
+            return left;
+        }
+
+        // add → mul ((+|-) mul)*
+        private Object add() {
+            Object left = mul();
+            while (true) {
+                if (eatIf(TokenType.PLUS)) {
+                    Object right = mul();
+                    left = num(left) + num(right);
+                } else if (eatIf(TokenType.MINUS)) {
+                    Object right = mul();
+                    left = num(left) - num(right);
+                } else break;
+            }
+            return left;
+        }
+
+        // mul → unary ((*|/) unary)*
+        private Object mul() {
+            Object left = unary();
+            while (true) {
+                if (eatIf(TokenType.STAR)) {
+                    Object right = unary();
+                    left = num(left) * num(right);
+                } else if (eatIf(TokenType.SLASH)) {
+                    Object right = unary();
+                    left = num(left) / num(right);
+                } else break;
+            }
+            return left;
+        }
+
+        // unary → NOT unary | MINUS unary | primary
+        private Object unary() {
+            if (eatIf(TokenType.NOT)) {
+                return !truthy(unary());
+            } else if (eatIf(TokenType.MINUS)) {
+                return -num(unary());
+            }
+            return primary();
+        }
+
+        private Object primary() {
+            tick();
+            if (eatIf(TokenType.NUMBER)) {
+                String s = t[i-1].lexeme;
+                return s.contains(".") ? Double.parseDouble(s) : Integer.parseInt(s);
+            }
+            if (eatIf(TokenType.STRING)) return t[i-1].lexeme;
+            if (eatIf(TokenType.TRUE)) return true;
+            if (eatIf(TokenType.FALSE)) return false;
+            if (eatIf(TokenType.NULL) || eatIf(TokenType.UNDEFINED)) return null;
+            if (eatIf(TokenType.LPAREN)) {
+                Object v = or();
+                eat(TokenType.RPAREN, "Falta ')'");
+                return v;
+            }
+            if (is(TokenType.IDENT) && paths[i] != null) {
+                String[] path = paths[i];
+                i = pathEnd[i];
+                return getDeep(env, path);
+            }
+            if (eatIf(TokenType.IDENT)) {
+                StringBuilder sb = new StringBuilder(t[i-1].lexeme);
+                while (eatIf(TokenType.DOT)) {
+                    Token id = eat(TokenType.IDENT, "Se esperaba IDENT después de '.'");
+                    sb.append('.').append(id.lexeme);
+                }
+                return getDeep(env, sb.toString());
+            }
+            throw new RuntimeException("Expresión inválida cerca de " + tok().type + " '" + tok().lexeme + "'");
+        }
+
+        private static double num(Object v) {
+            if (v == null) return 0.0;
+            if (v instanceof Integer i) return i.doubleValue();
+            if (v instanceof Long l) return l.doubleValue();
+            if (v instanceof Double d) return d;
+            if (v instanceof Float f) return f.doubleValue();
+            if (v instanceof String s) {
+                try { return Double.parseDouble(s); } catch (Exception ignored) { return 0.0; }
+            }
+            if (v instanceof Boolean b) return b ? 1.0 : 0.0;
+            return 0.0;
+        }
+
+        @SuppressWarnings({"rawtypes","unchecked"})
+        private static int compare(Object a, Object b) {
+            if (a == null && b == null) return 0;
+            if (a == null) return -1;
+            if (b == null) return 1;
+            if (a instanceof Number || b instanceof Number) {
+                double da = num(a), db = num(b);
+                return Double.compare(da, db);
+            }
+            if (a instanceof String sa && b instanceof String sb) {
+                return sa.compareTo(sb);
+            }
+            if (a instanceof Comparable ca && b.getClass().isAssignableFrom(a.getClass())) {
+                return ca.compareTo(b);
+            }
+            return String.valueOf(a).compareTo(String.valueOf(b));
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package co.edu.unbosque.model.engine;
+
+import java.util.*;
+
+import co.edu.unbosque.model.report.TestReporter;
+
+/**
+ * Givens compartidos entre tests de un programa:
+ * - Los tests se ordenan en un trie por su secuencia de givens (el texto de cada asignación)
+ * - Un prefijo que comparten dos o más tests se evalúa una sola vez, con el primero que lo necesita,
+ *   y queda como instantánea inmutable; cada test copia solo el primer nivel y un mapa anidado
+ *   se copia recién cuando uno de sus givens escribe dentro de él
+ * - Junto con la instantánea se graba lo que hizo cada regla sobre el prefijo; en cada test se repite
+ *   sin evaluar para los targets cuyas rutas ({@link RuleSet#slotsOf}) no escribe ninguno de sus givens propios
+ * - El prefijo se calcula con su propio intérprete: no se le cobra al test que lo pidió primero, así que
+ *   el resultado de un test no depende del orden en que corren
+ * - Con {@link Limits#maxOps()} o {@link Limits#timeoutNanos()} activos no se comparte nada: cada test
+ *   evalúa todos sus givens y reglas con su presupuesto, y pasa o falla igual que si corriera solo
+ * El costo de cargar givens crece con la cantidad de prefijos distintos, no con la de tests.
+ */
+final class Fixtures {
+
+    private static final class Node {
+        final int depth, firstTest;
+        final Map<String, Node> children = new HashMap<>();
+        int count;
+        volatile Prefix prefix;
+        volatile boolean broken;
+
+        Node(int depth, int firstTest) {
+            this.depth = depth;
+            this.firstTest = firstTest;
+        }
+    }
+
+    /** Entorno tras los givens del prefijo, y lo que hicieron las reglas sobre él (null si no se pudo grabar). */
+    private record Prefix(Map<String, Object> env, RuleSet.Trace trace) {}
+
+    private final RuleSet rules;
+    private final Limits limits;
+    private final CompiledProgram.CompiledTest[] tests;
+    private final Node[] shared;     // por test: el prefijo compartido más largo, o null
+    private final BitSet[] reuse;    // por test: targets que se repiten de la grabación del prefijo
+
+    Fixtures(RuleSet rules, Limits limits, CompiledProgram.CompiledTest[] tests) {
+        this.rules = rules;
+        this.limits = limits;
+        this.tests = tests;
+        this.shared = new Node[tests.length];
+        this.reuse = new BitSet[tests.length];
+        if (limits.maxOps() > 0 || limits.timeoutNanos() > 0) return;
+        Node root = new Node(0, -1);
+        for (int i = 0; i < tests.length; i++) {
+            Node n = root;
+            for (String g : tests[i].givenText) {
+                int depth = n.depth + 1, first = i;
+                n = n.children.computeIfAbsent(g, k -> new Node(depth, first));
+                n.count++;
+            }
+        }
+        for (int i = 0; i < tests.length; i++) {
+            Node n = root, best = null;
+            for (String g : tests[i].givenText) {
+                n = n.children.get(g);
+                if (n.count < 2) break;
+                best = n;
+            }
+            if (best == null) continue;
+            shared[i] = best;
+            reuse[i] = rules.unaffectedBy(tests[i].keys.subList(best.depth, tests[i].keys.size()));
+        }
+    }
+
+    /** Corre el test {@code i} sobre el entorno vacío de {@code s}, partiendo de su prefijo compartido si lo tiene. */
+    boolean run(int i, Engine.Scratch s, TestReporter reporter, RuleSet.RuleListener listener) {
+        Node n = shared[i];
+        Prefix p = n == null ? null : prefix(n);
+        if (p == null) return tests[i].run(rules, s, 0, null, null, reporter, listener);
+        s.env.putAll(p.env);
+        return tests[i].run(rules, s, n.depth, p.trace, p.trace == null ? null : reuse[i], reporter, listener);
+    }
+
+    /**
+     * Instantánea del prefijo {@code n}; la primera vez la calcula. Si un given falla (o supera la profundidad),
+     * cada test lo vuelve a evaluar desde cero y el error aparece en el mismo punto que sin prefijos compartidos.
+     */
+    private Prefix prefix(Node n) {
+        Prefix p = n.prefix;
+        if (p != null || n.broken) return p;
+        Expr.ExprEval ev = new Expr.ExprEval();
+        ev.arm(limits);
+        Map<String, Object> env = new LinkedHashMap<>();
+        try {
+            tests[n.firstTest].given(env, 0, n.depth, ev);
+        } catch (RuntimeException ex) {
+            n.broken = true;
+            return null;
+        }
+        Map<String, Object> frozen = Expr.freeze(env);
+        RuleSet.Trace trace = new RuleSet.Trace(rules);
+        ev.arm(limits);
+        try {
+            rules.apply(new LinkedHashMap<>(frozen), trace, new BitSet(), ev);
+        } catch (RuntimeException ex) {
+            trace = null;   // sin grabación: cada test evalúa sus reglas
+        }
+        n.prefix = p = new Prefix(frozen, trace);
+        return p;
+    }
+}
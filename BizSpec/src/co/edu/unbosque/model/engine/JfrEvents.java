@@ -0,0 +1,107 @@
+package co.edu.unbosque.model.engine;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import co.edu.unbosque.model.engine.RuleSet.Rule;
+
+/**
+ * Eventos JFR del pipeline BizSpec (categoría "BizSpec"):
+ * - bizspec.ProgramLoad, bizspec.RuleSetCompile, bizspec.TestExecution: activos por defecto
+ * - bizspec.RuleEvaluation: apagado; muestreado 1 de cada {@code bizspec.jfr.ruleSampleRate} (100)
+ * Se activan con la configuración estándar de JFR, p. ej.
+ * {@code -XX:StartFlightRecording:settings=profile,+bizspec.RuleEvaluation#enabled=true}.
+ * Mientras JFR no esté iniciado no se crea ningún evento: cargar la primera subclase de {@link Event}
+ * arranca JFR y le suma cientos de milisegundos al arranque de la CLI.
+ */
+public final class JfrEvents {
+
+    private JfrEvents() {}
+
+    /** true si JFR está iniciado (por {@code -XX:StartFlightRecording} o {@code jcmd JFR.start}). */
+    public static boolean active() {
+        return FlightRecorder.isInitialized();
+    }
+
+    @Name("bizspec.ProgramLoad")
+    @Label("BizSpec Program Load")
+    @Description("Tokenización y parseo de un programa")
+    @Category("BizSpec")
+    @StackTrace(false)
+    public static final class ProgramLoad extends Event {
+        @Label("Source Chars") public long sourceSize;
+        @Label("Tokens") public int tokens;
+        @Label("Rules") public int rules;
+        @Label("Tests") public int tests;
+        @Label("Incremental") @Description("Editor: solo se re-parsearon los bloques editados")
+        public boolean incremental;
+    }
+
+    @Name("bizspec.RuleSetCompile")
+    @Label("BizSpec Rule Set Compile")
+    @Category("BizSpec")
+    @StackTrace(false)
+    public static final class RuleSetCompile extends Event {
+        @Label("Rules") public int rules;
+        @Label("Targets") public int targets;
+    }
+
+    @Name("bizspec.TestExecution")
+    @Label("BizSpec Test Execution")
+    @Category("BizSpec")
+    @StackTrace(false)
+    public static final class TestExecution extends Event {
+        @Label("Test") public String name;
+        @Label("Passed") public boolean passed;
+    }
+
+    @Name("bizspec.RuleEvaluation")
+    @Label("BizSpec Rule Evaluation")
+    @Description("Evaluación muestreada de la condición de una regla")
+    @Category("BizSpec")
+    @StackTrace(false)
+    @Enabled(false)
+    public static final class RuleEvaluation extends Event {
+        @Label("Rule") public String rule;
+        @Label("Target") public String target;
+        @Label("Outcome") @Description("TRUE, FALSE o SHADOWED") public String outcome;
+    }
+
+    private static final int SAMPLE_RATE = Math.max(1, Integer.getInteger("bizspec.jfr.ruleSampleRate", 100));
+
+    /** Listener que emite RuleEvaluation muestreados; null si el evento está apagado. */
+    public static RuleSet.RuleListener ruleSampler() {
+        return active() && Registered.RULE_EVALUATION.isEnabled() ? RuleSampler.INSTANCE : null;
+    }
+
+    private static final class Registered {
+        static final EventType RULE_EVALUATION = EventType.getEventType(RuleEvaluation.class);
+    }
+
+    private static final class RuleSampler implements RuleSet.RuleListener {
+        static final RuleSampler INSTANCE = new RuleSampler();
+
+        @Override public void applied(Rule rule, Object value) {}
+        @Override public void evaluated(Rule rule, boolean result) { sample(rule, result ? "TRUE" : "FALSE"); }
+        @Override public void shadowed(Rule rule) { sample(rule, "SHADOWED"); }
+
+        private static void sample(Rule rule, String outcome) {
+            if (SAMPLE_RATE > 1 && ThreadLocalRandom.current().nextInt(SAMPLE_RATE) != 0) return;
+            RuleEvaluation ev = new RuleEvaluation();
+            if (!ev.shouldCommit()) return;
+            ev.rule = rule.name();
+            ev.target = rule.target();
+            ev.outcome = outcome;
+            ev.commit();
+        }
+    }
+}
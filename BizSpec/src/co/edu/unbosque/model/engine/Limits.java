@@ -0,0 +1,20 @@
+package co.edu.unbosque.model.engine;
+
+import java.time.Duration;
+
+/**
+ * Límites de recursos de un {@link Engine}, por evaluación (una decisión o un test):
+ * - {@code maxDepth}: anidamiento máximo de una expresión (paréntesis y operadores unarios), se valida al compilar
+ * - {@code maxOps}: operandos evaluados, sumando todas las expresiones de la evaluación
+ * - {@code timeoutNanos}: tiempo de reloj, revisado cada pocos miles de operaciones
+ * Un valor ≤ 0 deja ese límite apagado.
+ */
+public record Limits(int maxDepth, long maxOps, long timeoutNanos) {
+
+    /** Solo la profundidad: lo justo para que una expresión nunca desborde la pila del intérprete. */
+    public static final Limits DEFAULT = new Limits(256, 0, 0);
+
+    public static Limits of(int maxDepth, long maxOps, Duration timeout) {
+        return new Limits(maxDepth, maxOps, timeout == null ? 0 : timeout.toNanos());
+    }
+}
@@ -0,0 +1,274 @@
+package co.edu.unbosque.model.engine;
+
+import java.io.StringWriter;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+
+import co.edu.unbosque.model.ast.BizNode;
+import co.edu.unbosque.model.ast.TableNode;
+import co.edu.unbosque.model.engine.RuleSet.Rule;
+import co.edu.unbosque.model.lexer.Evaluator.Test;
+import co.edu.unbosque.model.report.TestReporter;
+import co.edu.unbosque.model.report.TextReporter;
+
+/**
+ * Re-ejecución selectiva de tests para el modo en vivo:
+ * - Cada target tiene un hash de sus reglas compiladas: nombre, condición, valor y cuántas reglas
+ *   de los targets que leen ya corrieron antes (el orden entre reglas también cambia el resultado)
+ * - Un test depende de las raíces que leen sus expects, y una fila de tabla de las de las rutas given y
+ *   expect de su tabla; en ambos casos cerradas con {@link RuleSet#slotsOf}
+ * - {@link #plan} compara contra la última corrida completa y elige los casos (tests y filas) afectados,
+ *   nuevos o editados
+ * - {@link #run} los corre por lotes en un pool de hilos y entrega cada resultado apenas termina;
+ *   las filas seguidas de una tabla comparten el estado de evaluación
+ * Una corrida cancelada no se registra: la siguiente compara contra la última completa.
+ */
+public final class LiveRunner implements AutoCloseable {
+
+    private static final int BATCH = 32;
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L, FNV_PRIME = 0x100000001b3L;
+
+    /** Resultado de un caso re-ejecutado; {@code index}: caso del programa, {@code report}: formato de consola. */
+    public record Result(int index, String name, boolean passed, String report) {}
+
+    /** {@code passed}/{@code failed}: totales de la suite completa (re-ejecutados + conocidos). */
+    public record Summary(int rerun, int passed, int failed) {}
+
+    /** Casos a re-ejecutar para un AST; se obtiene con {@link #plan}. */
+    public static final class Plan {
+        final CompiledProgram program;
+        final String[] keys;
+        final int[] selected;
+        final Snapshot next;
+        final Set<String> changed;
+
+        Plan(CompiledProgram program, String[] keys, int[] selected, Snapshot next, Set<String> changed) {
+            this.program = program;
+            this.keys = keys;
+            this.selected = selected;
+            this.next = next;
+            this.changed = changed;
+        }
+
+        /** Tests más filas de tablas. */
+        public int total() { return program.cases(); }
+        public int selected() { return selected.length; }
+
+        /** Targets cuyas reglas cambiaron desde la última corrida completa (vacío en la primera). */
+        public Set<String> changedTargets() { return changed; }
+    }
+
+    private record Snapshot(Map<String, Long> targets, Map<String, Long> tests, Map<String, Boolean> results) {}
+
+    private final Engine engine = new Engine();
+    private final ExecutorService pool;
+    private volatile Snapshot last;
+
+    public LiveRunner() { this(Runtime.getRuntime().availableProcessors()); }
+
+    public LiveRunner(int threads) {
+        this.pool = Executors.newFixedThreadPool(Math.max(1, threads), r -> {
+            Thread t = new Thread(r, "bizspec-live");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /** Olvida la última corrida: el siguiente plan re-ejecuta todo. */
+    public void reset() { last = null; }
+
+    public Plan plan(BizNode program) {
+        CompiledProgram compiled = engine.compile(program);
+        RuleSet rules = compiled.rules();
+        List<Test> tests = compiled.tests();
+        Map<String, List<String>> byRoot = targetsByRoot(rules);
+        Map<String, Long> targetHashes = hashTargets(rules, byRoot);
+        Snapshot prev = last;
+
+        Set<String> changed = new LinkedHashSet<>(), changedRoots = new HashSet<>();
+        if (prev != null) {
+            for (Map.Entry<String, Long> e : targetHashes.entrySet()) {
+                if (!e.getValue().equals(prev.targets.get(e.getKey()))) changed.add(e.getKey());
+            }
+            for (String t : prev.targets.keySet()) if (!targetHashes.containsKey(t)) changed.add(t);
+            for (String t : changed) changedRoots.add(Expr.root(t));
+        }
+
+        String[] keys = new String[compiled.cases()];
+        Map<String, Long> testHashes = new HashMap<>();
+        Map<String, Integer> seen = new HashMap<>();
+        int[] selected = new int[keys.length];
+        int n = 0;
+        for (int i = 0; i < tests.size(); i++) {
+            Test t = tests.get(i);
+            keys[i] = t.name() + "#" + seen.merge(t.name(), 1, Integer::sum);
+            long h = hash(hash(FNV_OFFSET, t.givens()), t.expects());
+            testHashes.put(keys[i], h);
+            if (stale(prev, keys[i], h) || (!changedRoots.isEmpty() && !Collections.disjoint(rootsOf(t, rules, byRoot), changedRoots))) {
+                selected[n++] = i;
+            }
+        }
+        // filas: clave "tabla#n[fila]" (no choca con la de un test, que termina en #n); hash del encabezado y sus celdas
+        Map<String, Integer> seenTables = new HashMap<>();
+        int k = tests.size();
+        for (TableNode table : compiled.tables()) {
+            String key = table.text + "#" + seenTables.merge(table.text, 1, Integer::sum);
+            long head = hash(hash(FNV_OFFSET, Arrays.asList(table.givens)), Arrays.asList(table.expects));
+            boolean affected = !changedRoots.isEmpty() && !Collections.disjoint(rootsOf(table, rules, byRoot), changedRoots);
+            for (int r = 0; r < table.rows(); r++, k++) {
+                keys[k] = key + "[" + (r + 1) + "]";
+                long h = head;
+                for (int c = 0; c < table.columns(); c++) h = hash(h, TableNode.literal(table.cell(r, c)));
+                testHashes.put(keys[k], h);
+                if (affected || stale(prev, keys[k], h)) selected[n++] = k;
+            }
+        }
+        Snapshot next = new Snapshot(targetHashes, testHashes, new HashMap<>());
+        return new Plan(compiled, keys, Arrays.copyOf(selected, n), next, Collections.unmodifiableSet(changed));
+    }
+
+    /**
+     * Corre los tests elegidos por {@code plan}; {@code sink} recibe cada resultado en el hilo que llama.
+     * Si ese hilo es interrumpido, cancela los lotes pendientes y lanza {@link CancellationException}.
+     */
+    public Summary run(Plan plan, Consumer<Result> sink) {
+        int[] sel = plan.selected;
+        CompletionService<List<Result>> cs = new ExecutorCompletionService<>(pool);
+        List<Future<List<Result>>> batches = new ArrayList<>();
+        for (int from = 0; from < sel.length; from += BATCH) {
+            int f = from, to = Math.min(sel.length, from + BATCH);
+            batches.add(cs.submit(() -> runBatch(plan, f, to)));
+        }
+        Map<String, Boolean> results = plan.next.results;
+        Snapshot prev = last;
+        for (int k = 0; prev != null && k < plan.keys.length; k++) {
+            Boolean known = prev.results.get(plan.keys[k]);
+            if (known != null) results.put(plan.keys[k], known);
+        }
+        try {
+            for (int i = 0; i < batches.size(); i++) {
+                for (Result r : cs.take().get()) {
+                    results.put(plan.keys[r.index], r.passed);
+                    sink.accept(r);
+                }
+            }
+        } catch (InterruptedException ex) {
+            for (Future<?> f : batches) f.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Ejecución cancelada");
+        } catch (ExecutionException ex) {
+            for (Future<?> f : batches) f.cancel(true);
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException re) throw re;
+            throw new IllegalStateException(cause);
+        }
+        last = plan.next;
+        int passed = 0;
+        for (Boolean ok : results.values()) if (ok) passed++;
+        return new Summary(sel.length, passed, results.size() - passed);
+    }
+
+    @Override
+    public void close() { pool.shutdownNow(); }
+
+    // ===== internos =====
+    /** Caso nuevo, editado o sin resultado en la última corrida completa. */
+    private static boolean stale(Snapshot prev, String key, long hash) {
+        return prev == null || !Long.valueOf(hash).equals(prev.tests.get(key)) || !prev.results.containsKey(key);
+    }
+
+    /** Corre los casos elegidos {@code from..to-1}; los que son consecutivos en el programa, de una vez. */
+    private static List<Result> runBatch(Plan plan, int from, int to) {
+        List<Result> out = new ArrayList<>(to - from);
+        StringWriter text = new StringWriter();
+        TextReporter reporter = new TextReporter(text);
+        for (int k = from, end; k < to; k = end) {
+            for (end = k + 1; end < to && plan.selected[end] == plan.selected[end - 1] + 1; end++);
+            int first = plan.selected[k];
+            plan.program.runCases(first, plan.selected[end - 1] + 1, new TestReporter() {
+                int index = first;
+
+                @Override public void testStarted(String name) {
+                    text.getBuffer().setLength(0);
+                    reporter.testStarted(name);
+                }
+                @Override public void expectResult(String expr, boolean ok) { reporter.expectResult(expr, ok); }
+                @Override public void testError(String name, RuntimeException error) { reporter.testError(name, error); }
+                @Override public void testFinished(String name, boolean passed, long nanos) {
+                    reporter.testFinished(name, passed, nanos);
+                    out.add(new Result(index++, name, passed, text.toString()));
+                }
+            }, reporter::ruleApplied, Metrics.OFF);
+        }
+        return out;
+    }
+
+    /** Raíces que pueden cambiar lo que validan los expects de {@code t}. */
+    private static Set<String> rootsOf(Test t, RuleSet rules, Map<String, List<String>> byRoot) {
+        Set<String> roots = new HashSet<>();
+        for (String ex : t.expects()) {
+            for (String path : Expr.compile(ex).reads()) addRoots(roots, path, rules, byRoot);
+        }
+        return roots;
+    }
+
+    /** Raíces que pueden cambiar lo que valida una fila de {@code table}: las de sus rutas given y expect. */
+    private static Set<String> rootsOf(TableNode table, RuleSet rules, Map<String, List<String>> byRoot) {
+        Set<String> roots = new HashSet<>();
+        for (String path : table.givens) addRoots(roots, path, rules, byRoot);
+        for (String path : table.expects) addRoots(roots, path, rules, byRoot);
+        return roots;
+    }
+
+    /** La raíz de {@code path} y las de los slots de los targets que cuelgan de ella. */
+    private static void addRoots(Set<String> roots, String path, RuleSet rules, Map<String, List<String>> byRoot) {
+        String root = Expr.root(path);
+        roots.add(root);
+        for (String target : byRoot.getOrDefault(root, List.of())) {
+            for (String slot : rules.slotsOf(target)) roots.add(Expr.root(slot));
+        }
+    }
+
+    private static Map<String, List<String>> targetsByRoot(RuleSet rules) {
+        Map<String, List<String>> byRoot = new HashMap<>();
+        for (String t : rules.targets()) byRoot.computeIfAbsent(Expr.root(t), k -> new ArrayList<>()).add(t);
+        return byRoot;
+    }
+
+    private static Map<String, Long> hashTargets(RuleSet rules, Map<String, List<String>> byRoot) {
+        Map<String, Long> hashes = new LinkedHashMap<>();
+        Map<String, Integer> applied = new HashMap<>();
+        for (Rule r : rules.rules()) {
+            long h = hashes.getOrDefault(r.target(), FNV_OFFSET);
+            h = hash(h, r.name());
+            h = hash(h, r.condition().source);
+            h = hash(h, r.value().source);
+            Set<String> reads = new LinkedHashSet<>(r.condition().reads());
+            reads.addAll(r.value().reads());
+            for (String path : reads) {
+                for (String t : byRoot.getOrDefault(Expr.root(path), List.of())) {
+                    h = hash(h, t + "@" + applied.getOrDefault(t, 0));
+                }
+            }
+            applied.merge(r.target(), 1, Integer::sum);
+            hashes.put(r.target(), h);
+        }
+        return hashes;
+    }
+
+    private static long hash(long h, List<String> parts) {
+        for (String s : parts) h = hash(h, s);
+        return hash(h, "\u0000");
+    }
+
+    /** FNV-1a de 64 bits sobre los chars de {@code s}, terminado en un separador. */
+    private static long hash(long h, String s) {
+        for (int i = 0; i < s.length(); i++) {
+            h ^= s.charAt(i);
+            h *= FNV_PRIME;
+        }
+        h ^= 0x1f;
+        return h * FNV_PRIME;
+    }
+}
@@ -0,0 +1,159 @@
+package co.edu.unbosque.model.engine;
+
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+import co.edu.unbosque.model.engine.RuleSet.Rule;
+
+/**
+ * Instrumentación del pipeline BizSpec:
+ * - Contadores por regla: condición evaluada, condición verdadera, aplicada, sombreada
+ * - Tiempos por fase (tokenizar, parsear, compilar, evaluar)
+ * - Histograma log2 de latencia por test
+ * Todo sobre LongAdder; {@link #OFF} no cuenta nada y no devuelve listener.
+ */
+public final class Metrics {
+
+    public enum Phase { TOKENIZE, PARSE, COMPILE, EVALUATE }
+
+    public static final Metrics OFF = new Metrics(false);
+
+    private static final int BUCKETS = 64;
+
+    private final boolean enabled;
+    private final LongAdder[] phaseCount = adders(Phase.values().length);
+    private final LongAdder[] phaseNanos = adders(Phase.values().length);
+    private final LongAdder[] latency = adders(BUCKETS);
+    private volatile RuleCounters rules;
+
+    public Metrics() { this(true); }
+
+    private Metrics(boolean enabled) { this.enabled = enabled; }
+
+    public boolean enabled() { return enabled; }
+
+    // ===== fases =====
+    public long start() { return enabled ? System.nanoTime() : 0L; }
+
+    public void stop(Phase phase, long t0) {
+        if (!enabled) return;
+        phaseCount[phase.ordinal()].increment();
+        phaseNanos[phase.ordinal()].add(System.nanoTime() - t0);
+    }
+
+    /** Cierra la fase EVALUATE de un test y lo suma al histograma. */
+    public void stopTest(long t0) {
+        if (!enabled) return;
+        long d = System.nanoTime() - t0;
+        phaseCount[Phase.EVALUATE.ordinal()].increment();
+        phaseNanos[Phase.EVALUATE.ordinal()].add(d);
+        latency[bucket(d)].increment();
+    }
+
+    // ===== reglas =====
+    /** Listener que cuenta los eventos de las reglas de {@code rs}; null si está apagado. */
+    public RuleSet.RuleListener watch(RuleSet rs) {
+        if (!enabled) return null;
+        RuleCounters c = rules;
+        if (c == null || c.rs != rs) {
+            synchronized (this) {
+                c = rules;
+                if (c == null || c.rs != rs) rules = c = new RuleCounters(rs);
+            }
+        }
+        return c;
+    }
+
+    // ===== snapshot =====
+    public record PhaseStat(Phase phase, long count, long nanos) {}
+    public record RuleStat(String name, String target, int line, long evaluated, long matched, long applied, long shadowed) {}
+
+    public record Snapshot(List<PhaseStat> phases, List<RuleStat> rules, long[] latencyBuckets) {
+
+        public long tests() {
+            long n = 0;
+            for (long b : latencyBuckets) n += b;
+            return n;
+        }
+
+        /** Cota superior (ns) del percentil {@code p} (0..100) según los buckets. */
+        public long latencyPercentile(double p) {
+            long total = tests();
+            if (total == 0) return 0;
+            long rank = (long) Math.ceil(total * p / 100.0), seen = 0;
+            for (int i = 0; i < latencyBuckets.length; i++) {
+                seen += latencyBuckets[i];
+                if (seen >= rank) return i >= 62 ? Long.MAX_VALUE : (1L << (i + 1));
+            }
+            return Long.MAX_VALUE;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder out = new StringBuilder("== BizSpec :: Métricas ==\n");
+            out.append("Fases:\n");
+            for (PhaseStat p : phases) {
+                out.append(String.format("  %-9s %6d x %10.3f ms%n", p.phase, p.count, p.nanos / 1e6));
+            }
+            out.append(String.format("Latencia por test: n=%d p50≤%.1f µs p90≤%.1f µs p99≤%.1f µs%n",
+                    tests(), latencyPercentile(50) / 1e3, latencyPercentile(90) / 1e3, latencyPercentile(99) / 1e3));
+            out.append("Reglas (evaluada / verdadera / aplicada / sombreada):\n");
+            if (rules.isEmpty()) out.append("  (sin datos)\n");
+            for (RuleStat r : rules) {
+                out.append("  \"").append(r.name).append("\" → ").append(r.target)
+                   .append(" [L").append(r.line).append("]  ")
+                   .append(r.evaluated).append(" / ").append(r.matched).append(" / ")
+                   .append(r.applied).append(" / ").append(r.shadowed).append("\n");
+            }
+            return out.toString();
+        }
+    }
+
+    public Snapshot snapshot() {
+        List<PhaseStat> ps = new ArrayList<>();
+        for (Phase p : Phase.values()) {
+            ps.add(new PhaseStat(p, phaseCount[p.ordinal()].sum(), phaseNanos[p.ordinal()].sum()));
+        }
+        List<RuleStat> rs = new ArrayList<>();
+        RuleCounters c = rules;
+        if (c != null) {
+            for (Rule r : c.rs.rules()) {
+                int id = r.id();
+                rs.add(new RuleStat(r.name(), r.target(), r.line(),
+                        c.evaluated[id].sum(), c.matched[id].sum(), c.applied[id].sum(), c.shadowed[id].sum()));
+            }
+        }
+        long[] lat = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) lat[i] = latency[i].sum();
+        return new Snapshot(Collections.unmodifiableList(ps), Collections.unmodifiableList(rs), lat);
+    }
+
+    // ===== internos =====
+    private static final class RuleCounters implements RuleSet.RuleListener {
+        final RuleSet rs;
+        final LongAdder[] evaluated, matched, applied, shadowed;
+
+        RuleCounters(RuleSet rs) {
+            this.rs = rs;
+            int n = rs.rules().size();
+            evaluated = adders(n); matched = adders(n); applied = adders(n); shadowed = adders(n);
+        }
+
+        @Override public void applied(Rule r, Object value) { applied[r.id()].increment(); }
+        @Override public void evaluated(Rule r, boolean result) {
+            evaluated[r.id()].increment();
+            if (result) matched[r.id()].increment();
+        }
+        @Override public void shadowed(Rule r) { shadowed[r.id()].increment(); }
+    }
+
+    private static int bucket(long nanos) {
+        return nanos <= 1 ? 0 : Math.min(BUCKETS - 1, 63 - Long.numberOfLeadingZeros(nanos));
+    }
+
+    private static LongAdder[] adders(int n) {
+        LongAdder[] a = new LongAdder[n];
+        for (int i = 0; i < n; i++) a[i] = new LongAdder();
+        return a;
+    }
+}
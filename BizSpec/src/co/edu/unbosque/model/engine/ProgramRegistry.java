@@ -0,0 +1,233 @@
+package co.edu.unbosque.model.engine;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Registro multi-tenant de programas compilados (un programa por tenant, p. ej. país + canal):
+ * - {@link #publish} compila una versión nueva en segundo plano y la publica con un CAS;
+ *   una versión más vieja que la publicada se descarta, así que el orden de llegada no importa
+ * - {@link #acquire} es una lectura volatile más un LongAdder: los lectores nunca se bloquean ni compiten
+ * - La versión reemplazada sigue viva mientras haya evaluaciones en curso con ella (leases abiertos);
+ *   su memoria se descuenta del presupuesto cuando el último lease se cierra
+ * - Si la memoria estimada supera el presupuesto, los tenants menos usados quedan "fríos":
+ *   se suelta el programa compilado y se conserva el fuente, que se recompila en el próximo acquire
+ * - Con {@link #trace} las decisiones de {@link #evaluate} pasan por un {@link DecisionTracer}
+ */
+public final class ProgramRegistry implements AutoCloseable {
+
+    /** Estimación gruesa de memoria de un programa compilado por carácter de fuente (tokens, AST, reglas). */
+    static final long BYTES_PER_CHAR = 32;
+
+    /** Resolución con la que se registra el último uso; evita escribir el campo en cada lectura. */
+    private static final long TOUCH_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    public record Stats(int tenants, int resident, long residentBytes, long budgetBytes, long evictions, long recompiles) {
+        @Override
+        public String toString() {
+            return "Tenants: " + tenants + " (" + resident + " compilados), memoria estimada "
+                    + residentBytes / 1024 + " / " + budgetBytes / 1024 + " KiB, "
+                    + evictions + " desalojos, " + recompiles + " recompilaciones";
+        }
+    }
+
+    /** Evaluación en curso sobre una versión; cerrarlo permite liberar esa versión cuando ya no es la publicada. */
+    public static final class Lease implements AutoCloseable {
+        private final ProgramRegistry registry;
+        private final Version version;
+        private boolean closed;
+
+        private Lease(ProgramRegistry registry, Version version) {
+            this.registry = registry;
+            this.version = version;
+        }
+
+        public CompiledProgram program() { return version.program; }
+        public long version() { return version.number; }
+
+        @Override
+        public void close() {
+            if (closed) return;
+            closed = true;
+            version.inFlight.decrement();
+            if (version.retired) registry.drain(version);
+        }
+    }
+
+    private static final class Version {
+        final long number;
+        final String source;
+        final CompiledProgram program;   // null: tenant frío
+        final long bytes;
+        final LongAdder inFlight = new LongAdder();
+        final AtomicBoolean drained = new AtomicBoolean();
+        volatile boolean retired;
+
+        Version(long number, String source, CompiledProgram program) {
+            this.number = number;
+            this.source = source;
+            this.program = program;
+            this.bytes = program == null ? 0 : (long) source.length() * BYTES_PER_CHAR;
+        }
+    }
+
+    private static final class Tenant {
+        final String id;
+        final AtomicReference<Version> current = new AtomicReference<>();
+        volatile long lastUsed = System.nanoTime();
+
+        Tenant(String id) { this.id = id; }
+    }
+
+    private final Engine engine;
+    private final long budget;
+    private final ExecutorService loader;
+    private final ConcurrentHashMap<String, Tenant> tenants = new ConcurrentHashMap<>();
+    private final AtomicLong bytes = new AtomicLong();
+    private final LongAdder evictions = new LongAdder(), recompiles = new LongAdder();
+    private volatile DecisionTracer tracer;
+
+    public ProgramRegistry(Engine engine, long budgetBytes) {
+        this.engine = engine;
+        this.budget = budgetBytes;
+        this.loader = Executors.newFixedThreadPool(Math.max(1, Runtime.getRuntime().availableProcessors() / 2), r -> {
+            Thread t = new Thread(r, "bizspec-registry");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Compila {@code source} en segundo plano y la publica como {@code version} de {@code tenant}
+     * si es más nueva que la actual. El future devuelve la versión vigente al terminar.
+     */
+    public CompletableFuture<Long> publish(String tenant, long version, String source) {
+        return CompletableFuture.supplyAsync(() -> install(tenant, version, source, engine.compile(source)), loader);
+    }
+
+    /** Versión publicada de {@code tenant}, o -1 si no existe. */
+    public long version(String tenant) {
+        Tenant t = tenants.get(tenant);
+        Version v = t == null ? null : t.current.get();
+        return v == null ? -1 : v.number;
+    }
+
+    /**
+     * Programa vigente de {@code tenant}; cerrar el lease al terminar de evaluar.
+     * Primero se cuenta el lease y después se confirma que la versión sigue publicada: si se retiró en medio,
+     * su drenado pudo no ver este lease, así que se suelta y se reintenta con la nueva. Un lease confirmado
+     * siempre lo ve el drenado, que ocurre después de reemplazar la versión.
+     */
+    public Lease acquire(String tenant) {
+        Tenant t = tenants.get(tenant);
+        while (true) {
+            Version v = t == null ? null : t.current.get();
+            if (v == null) throw new IllegalArgumentException("Tenant sin programa publicado: " + tenant);
+            if (v.program == null) v = warm(t);
+            v.inFlight.increment();
+            if (t.current.get() != v) {
+                v.inFlight.decrement();
+                if (v.retired) drain(v);
+                continue;
+            }
+            long now = System.nanoTime();
+            if (now - t.lastUsed > TOUCH_NANOS) t.lastUsed = now;
+            return new Lease(this, v);
+        }
+    }
+
+    /** Atajo: decisiones de {@code tenant} sobre {@code facts}. */
+    public Map<String, Object> evaluate(String tenant, Map<String, Object> facts) {
+        try (Lease lease = acquire(tenant)) {
+            return lease.program().evaluate(facts, tracer, tenant);
+        }
+    }
+
+    /** Traza las decisiones de {@link #evaluate} que elija el muestreo de {@code tracer}; null la apaga. */
+    public void trace(DecisionTracer tracer) { this.tracer = tracer; }
+
+    public Stats stats() {
+        int resident = 0;
+        for (Tenant t : tenants.values()) {
+            Version v = t.current.get();
+            if (v != null && v.program != null) resident++;
+        }
+        return new Stats(tenants.size(), resident, bytes.get(), budget, evictions.sum(), recompiles.sum());
+    }
+
+    @Override
+    public void close() { loader.shutdownNow(); }
+
+    // ===== internos =====
+    private long install(String id, long number, String source, CompiledProgram program) {
+        Tenant t = tenants.computeIfAbsent(id, Tenant::new);
+        Version next = new Version(number, source, program);
+        while (true) {
+            Version cur = t.current.get();
+            if (cur != null && cur.number >= number) return cur.number;   // llegó tarde: ya hay una más nueva
+            if (t.current.compareAndSet(cur, next)) {
+                bytes.addAndGet(next.bytes);
+                t.lastUsed = System.nanoTime();
+                if (cur != null) retire(cur);
+                evictIfNeeded(t);
+                return number;
+            }
+        }
+    }
+
+    /** Recompila un tenant frío (un hilo por tenant); si otro hilo ya lo hizo o publicó otra versión, usa esa. */
+    private Version warm(Tenant t) {
+        synchronized (t) {
+            while (true) {
+                Version cur = t.current.get();
+                if (cur.program != null) return cur;
+                Version hot = new Version(cur.number, cur.source, engine.compile(cur.source));
+                if (t.current.compareAndSet(cur, hot)) {
+                    bytes.addAndGet(hot.bytes);
+                    recompiles.increment();
+                    evictIfNeeded(t);
+                    return hot;
+                }
+            }
+        }
+    }
+
+    private void retire(Version v) {
+        v.retired = true;
+        drain(v);
+    }
+
+    /** Descuenta la memoria de una versión retirada cuando ya no quedan evaluaciones con ella. */
+    private void drain(Version v) {
+        if (v.inFlight.sum() == 0 && v.drained.compareAndSet(false, true)) bytes.addAndGet(-v.bytes);
+    }
+
+    /** Deja fríos los tenants menos usados (salvo {@code keep}) hasta volver al presupuesto. */
+    private void evictIfNeeded(Tenant keep) {
+        if (budget <= 0 || bytes.get() <= budget) return;
+        synchronized (this) {
+            List<Tenant> byAge = new ArrayList<>();
+            for (Tenant t : tenants.values()) {
+                Version v = t.current.get();
+                if (t != keep && v != null && v.program != null) byAge.add(t);
+            }
+            byAge.sort(Comparator.comparingLong(t -> t.lastUsed));
+            // las versiones desalojadas con evaluaciones en curso se descuentan al drenar; aquí se proyecta
+            long projected = bytes.get();
+            for (Tenant t : byAge) {
+                if (projected <= budget) break;
+                Version v = t.current.get();
+                if (v == null || v.program == null) continue;
+                if (t.current.compareAndSet(v, new Version(v.number, v.source, null))) {
+                    evictions.increment();
+                    projected -= v.bytes;
+                    retire(v);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,315 @@
+package co.edu.unbosque.model.engine;
+
+import java.util.*;
+
+import co.edu.unbosque.model.lexer.Token;
+import co.edu.unbosque.model.lexer.TokenType;
+
+/**
+ * Análisis estático de las reglas de un {@link RuleSet} (se aplica solo la primera regla válida por target):
+ * - Condiciones que nunca se cumplen ({@code x >= 100 and x < 50})
+ * - Reglas tapadas: siempre que su condición se cumple, una regla anterior ya asignó el mismo target
+ * - Reglas que siguen a una regla siempre verdadera del mismo target
+ * Razona con intervalos e igualdades sobre comparaciones ruta-literal unidas con and/or; lo demás es
+ * desconocido, así que una regla solo se marca si es seguro que nunca se aplica. Sigue la semántica del
+ * intérprete: null es menor que todo, el orden numérico es el de Double.compare y == exige el mismo tipo
+ * (los literales numéricos son Double).
+ */
+public final class RuleAnalyzer {
+
+    /** Combinaciones que se exploran por regla antes de rendirse (y no marcarla). */
+    private static final int BUDGET = 10_000;
+
+    public enum Kind { UNSATISFIABLE, SHADOWED, UNREACHABLE }
+
+    /** Regla que nunca se aplica; línea y columna son las de la regla en el fuente. */
+    public record Warning(Kind kind, RuleSet.Rule rule, String message) {
+        public int line() { return rule.line(); }
+        public int col() { return rule.col(); }
+
+        @Override
+        public String toString() { return "[L" + rule.line() + " C" + rule.col() + "] " + message; }
+    }
+
+    /** {@code path op lit}; {@code lit} null es el literal null. */
+    private record Atom(String path, TokenType op, Double lit) {
+        Atom negate() {
+            TokenType neg = switch (op) {
+                case EQEQ -> TokenType.NE;
+                case NE -> TokenType.EQEQ;
+                case GT -> TokenType.LE;
+                case LE -> TokenType.GT;
+                case GE -> TokenType.LT;
+                default -> TokenType.GE;   // LT
+            };
+            return new Atom(path, neg, lit);
+        }
+    }
+
+    /**
+     * Condición en forma normal disyuntiva: or de términos, cada uno un and de átomos.
+     * Los átomos desconocidos se omiten (el término queda más amplio); {@code exact} dice si no hubo ninguno.
+     */
+    private record Cond(List<List<Atom>> terms, boolean exact) {
+        static final Cond UNKNOWN = new Cond(List.of(List.of()), false);
+    }
+
+    private int budget;
+
+    private RuleAnalyzer() {}
+
+    /** Una advertencia por cada regla que nunca se aplica, en orden del fuente. */
+    public static List<Warning> analyze(RuleSet rs) {
+        return new RuleAnalyzer().run(rs);
+    }
+
+    /** {@code rs} sin las reglas de {@code warnings}. */
+    public static RuleSet prune(RuleSet rs, List<Warning> warnings) {
+        if (warnings.isEmpty()) return rs;
+        BitSet drop = new BitSet();
+        for (Warning w : warnings) drop.set(w.rule.id());
+        return rs.without(drop);
+    }
+
+    private List<Warning> run(RuleSet rs) {
+        List<RuleSet.Rule> rules = rs.rules();
+        List<Warning> out = new ArrayList<>();
+        Cond[] conds = new Cond[rules.size()];
+        BitSet dropped = new BitSet();
+        Map<String, RuleSet.Rule> alwaysTrue = new HashMap<>();
+        for (int j = 0; j < rules.size(); j++) {
+            RuleSet.Rule r = rules.get(j);
+            conds[j] = parse(r.condition());
+            RuleSet.Rule cut = alwaysTrue.get(r.target());
+            if (cut != null) {
+                out.add(new Warning(Kind.UNREACHABLE, r, "regla \"" + r.name() + "\" inalcanzable: la regla \""
+                        + cut.name() + "\" siempre asigna '" + r.target() + "' antes"));
+                dropped.set(j);
+                continue;
+            }
+            if (conds[j] == null) continue;   // falla al evaluarse: se conserva para que falle igual
+            if (unsatisfiable(conds[j])) {
+                out.add(new Warning(Kind.UNSATISFIABLE, r, "regla \"" + r.name() + "\": la condición nunca se cumple"));
+                dropped.set(j);
+                continue;
+            }
+            List<List<Atom>> cover = new ArrayList<>();
+            for (int i = 0; i < j; i++) {
+                if (dropped.get(i) || conds[i] == null || !conds[i].exact()) continue;
+                if (rules.get(i).target().equals(r.target()) && stable(rules, i, j, r.target())) cover.addAll(conds[i].terms());
+            }
+            if (!cover.isEmpty() && covered(conds[j], cover)) {
+                out.add(new Warning(Kind.SHADOWED, r, "regla \"" + r.name() + "\" tapada: siempre que se cumple, una regla anterior ya asignó '"
+                        + r.target() + "'"));
+                dropped.set(j);
+                continue;
+            }
+            if (conds[j].exact() && covered(new Cond(List.of(List.of()), true), conds[j].terms())) alwaysTrue.put(r.target(), r);
+        }
+        return out;
+    }
+
+    /**
+     * Entre la regla {@code i} y la {@code j} ninguna regla de otro target escribe lo que leen sus condiciones,
+     * así que ambas se evalúan sobre los mismos valores.
+     */
+    private static boolean stable(List<RuleSet.Rule> rules, int i, int j, String target) {
+        Set<String> roots = new HashSet<>();
+        for (String p : rules.get(i).condition().reads()) roots.add(Expr.root(p));
+        for (String p : rules.get(j).condition().reads()) roots.add(Expr.root(p));
+        for (int k = i; k < j; k++) {
+            String t = rules.get(k).target();
+            if (!t.equals(target) && roots.contains(t)) return false;
+        }
+        return true;
+    }
+
+    // ===== condiciones → forma normal disyuntiva =====
+    /** null si la condición falla al evaluarse (error de sintaxis). */
+    private static Cond parse(Expr cond) {
+        try {
+            cond.eval(Map.of());
+        } catch (RuntimeException ex) {
+            return null;
+        }
+        Token[] toks = cond.tokens();
+        int n = toks.length - 1;   // sin EOF
+        for (int k = 0; k < n; k++) {
+            TokenType t = toks[k].type;
+            if (t == TokenType.LPAREN || t == TokenType.RPAREN || t == TokenType.NOT) return Cond.UNKNOWN;
+        }
+        List<List<Atom>> terms = new ArrayList<>();
+        boolean exact = true;
+        List<Atom> term = new ArrayList<>();
+        boolean falseTerm = false;
+        int from = 0;
+        for (int k = 0; k <= n; k++) {
+            TokenType t = k < n ? toks[k].type : TokenType.EOF;
+            if (t != TokenType.AND && t != TokenType.OR && t != TokenType.EOF) continue;
+            if (k - from == 1 && toks[from].type == TokenType.FALSE) falseTerm = true;
+            else if (k - from != 1 || toks[from].type != TokenType.TRUE) {
+                Atom a = atom(toks, from, k);
+                if (a == null) exact = false;
+                else term.add(a);
+            }
+            if (t != TokenType.AND) {
+                if (!falseTerm) terms.add(term);
+                term = new ArrayList<>();
+                falseTerm = false;
+            }
+            from = k + 1;
+        }
+        return new Cond(terms, exact);
+    }
+
+    /** {@code ruta op literal} o {@code literal op ruta} en toks[from, to); null si es otra cosa. */
+    private static Atom atom(Token[] toks, int from, int to) {
+        for (int k = from; k < to; k++) {
+            TokenType op = toks[k].type;
+            if (op != TokenType.EQEQ && op != TokenType.NE && op != TokenType.GT
+                    && op != TokenType.GE && op != TokenType.LT && op != TokenType.LE) continue;
+            String path = path(toks, from, k);
+            Object[] lit = literal(toks, k + 1, to);
+            if (path != null && lit != null) return new Atom(path, op, (Double) lit[0]);
+            path = path(toks, k + 1, to);
+            lit = literal(toks, from, k);
+            if (path != null && lit != null) return new Atom(path, flip(op), (Double) lit[0]);
+            return null;
+        }
+        return null;
+    }
+
+    private static String path(Token[] toks, int from, int to) {
+        if (to - from < 1 || (to - from) % 2 == 0) return null;
+        StringBuilder sb = new StringBuilder();
+        for (int k = from; k < to; k++) {
+            boolean ident = (k - from) % 2 == 0;
+            if (toks[k].type != (ident ? TokenType.IDENT : TokenType.DOT)) return null;
+            if (ident) sb.append(sb.length() > 0 ? "." : "").append(toks[k].lexeme);
+        }
+        return sb.toString();
+    }
+
+    /** {valor} del literal numérico (con '-' opcional) o null; null si no es un literal. */
+    private static Object[] literal(Token[] toks, int from, int to) {
+        if (to - from == 1 && (toks[from].type == TokenType.NULL || toks[from].type == TokenType.UNDEFINED)) return new Object[] { null };
+        boolean neg = to - from == 2 && toks[from].type == TokenType.MINUS;
+        if (to - from != (neg ? 2 : 1) || toks[to - 1].type != TokenType.NUMBER) return null;
+        double d = Double.parseDouble(toks[to - 1].lexeme);
+        return new Object[] { neg ? -d : d };
+    }
+
+    private static TokenType flip(TokenType op) {
+        return switch (op) {
+            case GT -> TokenType.LT;
+            case LT -> TokenType.GT;
+            case GE -> TokenType.LE;
+            case LE -> TokenType.GE;
+            default -> op;
+        };
+    }
+
+    // ===== satisfacibilidad =====
+    private static boolean unsatisfiable(Cond c) {
+        for (List<Atom> term : c.terms()) if (sat(term)) return false;
+        return true;
+    }
+
+    /** Todo término de {@code c} implica alguno de {@code cover}: c ∧ ¬cover₁ ∧ ¬cover₂ ... no tiene solución. */
+    private boolean covered(Cond c, List<List<Atom>> cover) {
+        budget = BUDGET;
+        try {
+            for (List<Atom> term : c.terms()) if (escapes(new ArrayList<>(term), cover, 0)) return false;
+            return true;
+        } catch (IllegalStateException tooMany) {
+            return false;
+        }
+    }
+
+    private boolean escapes(List<Atom> acc, List<List<Atom>> cover, int k) {
+        if (--budget < 0) throw new IllegalStateException();
+        if (!sat(acc)) return false;
+        if (k == cover.size()) return true;
+        for (Atom a : cover.get(k)) {
+            acc.add(a.negate());
+            boolean e = escapes(acc, cover, k + 1);
+            acc.remove(acc.size() - 1);
+            if (e) return true;
+        }
+        return false;   // término vacío (true): su negación no tiene solución
+    }
+
+    /** Las rutas distintas se tratan como independientes: si una sola no tiene valor posible, el and tampoco. */
+    private static boolean sat(List<Atom> term) {
+        Map<String, List<Atom>> byPath = new HashMap<>();
+        for (Atom a : term) byPath.computeIfAbsent(a.path, k -> new ArrayList<>()).add(a);
+        for (List<Atom> atoms : byPath.values()) {
+            if (!satNull(atoms) && !satValue(atoms, true) && !satValue(atoms, false)) return false;
+        }
+        return true;
+    }
+
+    /** La ruta vale null: menor que cualquier literal, igual solo a null. */
+    private static boolean satNull(List<Atom> atoms) {
+        for (Atom a : atoms) if (!holds(a.op, a.lit == null ? 0 : -1, a.lit == null)) return false;
+        return true;
+    }
+
+    /**
+     * La ruta vale un Double ({@code isDouble}) o cualquier otro objeto no nulo (String, Integer, ...):
+     * frente a un número se compara su valor numérico, que puede ser cualquiera; == a un número exige Double.
+     */
+    private static boolean satValue(List<Atom> atoms, boolean isDouble) {
+        Range r = new Range();
+        List<Double> excluded = new ArrayList<>();
+        for (Atom a : atoms) {
+            if (a.lit == null) {
+                if (!holds(a.op, 1, false)) return false;
+                continue;
+            }
+            switch (a.op) {
+                case EQEQ -> {
+                    if (!isDouble) return false;
+                    r.above(a.lit, true);
+                    r.below(a.lit, true);
+                }
+                case NE -> { if (isDouble) excluded.add(a.lit); }
+                case GT, GE -> r.above(a.lit, a.op == TokenType.GE);
+                default -> r.below(a.lit, a.op == TokenType.LE);   // LT, LE
+            }
+        }
+        if (r.lo == null || r.hi == null) return true;
+        int c = Double.compare(r.lo, r.hi);
+        if (c != 0) return c < 0;   // entre dos valores distintos se supone que hay alguno
+        return r.loIn && r.hiIn && !excluded.contains(r.lo);
+    }
+
+    /** Intervalo en el orden de Double.compare; null: sin cota. */
+    private static final class Range {
+        Double lo, hi;
+        boolean loIn = true, hiIn = true;
+
+        void above(double l, boolean in) {
+            int c = lo == null ? 1 : Double.compare(l, lo);
+            if (c > 0) { lo = l; loIn = in; }
+            else if (c == 0) loIn &= in;
+        }
+
+        void below(double l, boolean in) {
+            int c = hi == null ? -1 : Double.compare(l, hi);
+            if (c < 0) { hi = l; hiIn = in; }
+            else if (c == 0) hiIn &= in;
+        }
+    }
+
+    private static boolean holds(TokenType op, int cmp, boolean eq) {
+        return switch (op) {
+            case EQEQ -> eq;
+            case NE -> !eq;
+            case GT -> cmp > 0;
+            case GE -> cmp >= 0;
+            case LT -> cmp < 0;
+            default -> cmp <= 0;   // LE
+        };
+    }
+}
@@ -0,0 +1,234 @@
+package co.edu.unbosque.model.engine;
+
+import java.util.*;
+
+import co.edu.unbosque.model.ast.BizNode;
+
+/**
+ * Reglas compiladas de un programa BizSpec:
+ * - Cada regla guarda sus expresiones ya tokenizadas
+ * - Aplica solo la primera regla válida para cada target (mismo orden del fuente)
+ * - Análisis estático: rutas de hechos de las que depende cada target
+ */
+public final class RuleSet {
+
+    /** Eventos por regla durante {@link #apply}. Solo {@code applied} es obligatorio. */
+    public interface RuleListener {
+        void applied(Rule rule, Object value);
+
+        /** La condición se evaluó (el target aún no estaba asignado). */
+        default void evaluated(Rule rule, boolean result) {}
+
+        /** Se saltó porque una regla anterior ya asignó el mismo target. */
+        default void shadowed(Rule rule) {}
+
+        /** Reenvía los eventos a ambos; acepta nulos. */
+        static RuleListener both(RuleListener a, RuleListener b) {
+            if (a == null) return b;
+            if (b == null) return a;
+            return new RuleListener() {
+                @Override public void applied(Rule r, Object v) { a.applied(r, v); b.applied(r, v); }
+                @Override public void evaluated(Rule r, boolean ok) { a.evaluated(r, ok); b.evaluated(r, ok); }
+                @Override public void shadowed(Rule r) { a.shadowed(r); b.shadowed(r); }
+            };
+        }
+    }
+
+    /** Reglas aplicadas en una corrida de {@link #apply} y sus valores, para repetirlas sin evaluar. */
+    static final class Trace implements RuleListener {
+        private final BitSet applied = new BitSet();
+        private final Object[] values;
+
+        Trace(RuleSet rs) { this.values = new Object[rs.rules.size()]; }
+
+        @Override
+        public void applied(Rule r, Object value) {
+            applied.set(r.id);
+            values[r.id] = value;
+        }
+    }
+
+    /** {@code id}: posición en el programa; {@code targetId}: índice denso del target (orden de aparición). */
+    public record Rule(int id, String name, Expr condition, String target, int targetId, Expr value, int line, int col) {}
+
+    private final List<Rule> rules;
+    private final Map<String, Set<String>> slotsByTarget;
+    private final Symbols symbols;
+    private final String[][] targetPaths;   // por targetId
+    private final String[][][] slotPaths;   // por targetId: segmentos de cada ruta de slotsOf, en el mismo orden
+    private final Map<String, Integer> targetIds = new HashMap<>();
+
+    private RuleSet(List<Rule> rules, Symbols symbols) {
+        this.rules = Collections.unmodifiableList(rules);
+        this.slotsByTarget = Collections.unmodifiableMap(analyze(rules));
+        this.symbols = symbols;
+        this.targetPaths = new String[slotsByTarget.size()][];
+        for (Rule r : rules) targetPaths[r.targetId] = symbols.path(r.target);
+        this.slotPaths = new String[slotsByTarget.size()][][];
+        int id = 0;
+        for (Map.Entry<String, Set<String>> e : slotsByTarget.entrySet()) {
+            targetIds.put(e.getKey(), id);
+            String[][] paths = new String[e.getValue().size()][];
+            int k = 0;
+            for (String slot : e.getValue()) paths[k++] = symbols.path(slot);
+            slotPaths[id++] = paths;
+        }
+    }
+
+    public static RuleSet compile(BizNode program) {
+        JfrEvents.RuleSetCompile ev = JfrEvents.active() ? new JfrEvents.RuleSetCompile() : null;
+        if (ev != null) ev.begin();
+        List<Rule> rs = new ArrayList<>();
+        Map<String, Integer> targetIds = new HashMap<>();
+        Symbols symbols = new Symbols();
+        for (BizNode n : program.children) {
+            if (!"Rule".equals(n.kind)) continue;
+            String when = childText(n, "When");
+            BizNode set = child(n, "Set");
+            String target = symbols.intern(childText(set, "Target"));
+            String value  = childText(set, "Value");
+            int targetId = targetIds.computeIfAbsent(target, k -> targetIds.size());
+            rs.add(new Rule(rs.size(), n.text, Expr.compile(when, symbols), target, targetId, Expr.compile(value, symbols), n.line, n.col));
+        }
+        RuleSet compiled = new RuleSet(rs, symbols);
+        if (ev != null) ev.end();
+        if (ev != null && ev.shouldCommit()) {
+            ev.rules = rs.size();
+            ev.targets = compiled.targets().size();
+            ev.commit();
+        }
+        return compiled;
+    }
+
+    public List<Rule> rules() { return rules; }
+
+    /** Tabla de símbolos del programa; los givens y expects de los tests se compilan con ella. */
+    public Symbols symbols() { return symbols; }
+
+    /** Segmentos internados del target {@code targetId}. */
+    String[] targetPath(int targetId) { return targetPaths[targetId]; }
+
+    /** Id de {@code target} (posición en {@link #targets()}), o -1 si ninguna regla lo asigna. */
+    int targetId(String target) {
+        Integer id = targetIds.get(target);
+        return id == null ? -1 : id;
+    }
+
+    /** Segmentos de cada ruta de {@link #slotsOf} del target {@code targetId}, en el mismo orden. */
+    String[][] slotPaths(int targetId) { return slotPaths[targetId]; }
+
+    /** Targets en orden de primera aparición. */
+    public Set<String> targets() { return slotsByTarget.keySet(); }
+
+    /**
+     * Rutas de hechos que determinan el valor final de {@code target}: lo que leen sus reglas,
+     * cerrado transitivamente sobre otros targets, más el propio target.
+     */
+    public Set<String> slotsOf(String target) {
+        Set<String> s = slotsByTarget.get(target);
+        return s == null ? Set.of(target) : s;
+    }
+
+    /** Aplica las reglas sobre {@code env} (lo modifica). */
+    public void apply(Map<String,Object> env, RuleListener listener) {
+        apply(env, listener, new BitSet(slotsByTarget.size()), new Expr.ExprEval());
+    }
+
+    /** Igual que {@link #apply(Map, RuleListener)} con estado reutilizable; {@code assigned} queda con los targets asignados. */
+    void apply(Map<String,Object> env, RuleListener listener, BitSet assigned, Expr.ExprEval ev) {
+        apply(env, listener, assigned, ev, null, null);
+    }
+
+    /**
+     * Las reglas de los targets en {@code reuse} no se evalúan: se repite lo grabado en {@code trace}
+     * (con los mismos eventos), que debe venir de un entorno igual en todas las rutas de esos targets.
+     */
+    void apply(Map<String,Object> env, RuleListener listener, BitSet assigned, Expr.ExprEval ev, Trace trace, BitSet reuse) {
+        assigned.clear();
+        for (Rule r : rules) {
+            if (assigned.get(r.targetId)) {
+                if (listener != null) listener.shadowed(r);
+                continue;
+            }
+            boolean replay = reuse != null && reuse.get(r.targetId);
+            boolean ok = replay ? trace.applied.get(r.id) : Expr.truthy(r.condition.eval(env, ev));
+            if (listener != null) listener.evaluated(r, ok);
+            if (ok) {
+                Object rhs = replay ? trace.values[r.id] : r.value.eval(env, ev);
+                Expr.putDeep(env, targetPaths[r.targetId], rhs);
+                assigned.set(r.targetId);
+                if (listener != null) listener.applied(r, rhs);
+            }
+        }
+    }
+
+    /** Las mismas reglas sin las de {@code drop} (por id), con ids y targetIds renumerados. */
+    RuleSet without(BitSet drop) {
+        List<Rule> kept = new ArrayList<>();
+        Map<String, Integer> targetIds = new HashMap<>();
+        for (Rule r : rules) {
+            if (drop.get(r.id)) continue;
+            int targetId = targetIds.computeIfAbsent(r.target, k -> targetIds.size());
+            kept.add(new Rule(kept.size(), r.name, r.condition, r.target, targetId, r.value, r.line, r.col));
+        }
+        return new RuleSet(kept, symbols);
+    }
+
+    /** Ids de los targets cuyas rutas no se solapan con ninguna de {@code writes} (segmentos de {@link Symbols#path}). */
+    BitSet unaffectedBy(List<String[]> writes) {
+        BitSet out = new BitSet();
+        for (int id = 0; id < slotPaths.length; id++) {
+            boolean clean = true;
+            for (int k = 0; clean && k < slotPaths[id].length; k++) {
+                for (String[] w : writes) if (overlaps(slotPaths[id][k], w)) { clean = false; break; }
+            }
+            if (clean) out.set(id);
+        }
+        return out;
+    }
+
+    /** Una ruta es prefijo de la otra: escribir una cambia lo que se lee en la otra. */
+    private static boolean overlaps(String[] a, String[] b) {
+        for (int i = 0, n = Math.min(a.length, b.length); i < n; i++) if (!a[i].equals(b[i])) return false;
+        return true;
+    }
+
+    // ===== Análisis estático de dependencias =====
+    private static Map<String, Set<String>> analyze(List<Rule> rules) {
+        Map<String, Set<String>> direct = new LinkedHashMap<>();
+        for (Rule r : rules) {
+            Set<String> s = direct.computeIfAbsent(r.target, k -> new LinkedHashSet<>());
+            s.addAll(r.condition.reads());
+            s.addAll(r.value.reads());
+        }
+        Map<String, Set<String>> closed = new LinkedHashMap<>();
+        for (String target : direct.keySet()) {
+            Set<String> slots = new LinkedHashSet<>();
+            slots.add(target);
+            Deque<String> pending = new ArrayDeque<>(direct.get(target));
+            Set<String> visited = new HashSet<>();
+            visited.add(target);
+            while (!pending.isEmpty()) {
+                String path = pending.pop();
+                if (!slots.add(path)) continue;
+                String root = Expr.root(path);
+                if (direct.containsKey(root) && visited.add(root)) {
+                    slots.add(root);
+                    pending.addAll(direct.get(root));
+                }
+            }
+            closed.put(target, Collections.unmodifiableSet(slots));
+        }
+        return closed;
+    }
+
+    private static BizNode child(BizNode n, String kind) {
+        if (n == null) return null;
+        for (BizNode c : n.children) if (kind.equals(c.kind)) return c;
+        return null;
+    }
+    private static String childText(BizNode n, String kind) {
+        BizNode c = child(n, kind);
+        return (c == null) ? "" : c.text;
+    }
+}
@@ -0,0 +1,68 @@
+package co.edu.unbosque.model.engine;
+
+import java.util.List;
+
+import co.edu.unbosque.model.ast.BizNode;
+import co.edu.unbosque.model.ast.TableNode;
+import co.edu.unbosque.model.lexer.Token;
+import co.edu.unbosque.model.lexer.Tokenizer;
+import co.edu.unbosque.model.parser.IncrementalParser;
+import co.edu.unbosque.model.parser.Parser;
+
+/**
+ * Front end BizSpec: fuente → tokens → AST.
+ * Registra las fases en {@link Metrics} y emite el evento JFR bizspec.ProgramLoad,
+ * tanto en la carga completa (CLI, suites) como en la incremental del editor.
+ */
+public final class SourceLoader {
+
+    public record Loaded(String source, List<Token> tokens, BizNode program) {}
+
+    private SourceLoader() {}
+
+    public static List<Token> tokenize(String source, Metrics m) {
+        long t0 = m.start();
+        List<Token> toks = new Tokenizer(source).tokenize();
+        m.stop(Metrics.Phase.TOKENIZE, t0);
+        return toks;
+    }
+
+    public static Loaded load(String source, Metrics m) {
+        JfrEvents.ProgramLoad ev = JfrEvents.active() ? new JfrEvents.ProgramLoad() : null;
+        if (ev != null) ev.begin();
+        List<Token> toks = tokenize(source, m);
+        long t0 = m.start();
+        BizNode program = new Parser(toks).parseProgram();
+        m.stop(Metrics.Phase.PARSE, t0);
+        if (ev != null) ev.end();
+        if (ev != null && ev.shouldCommit()) commit(ev, source == null ? 0 : source.length(), toks.size(), program, false);
+        return new Loaded(source, toks, program);
+    }
+
+    /**
+     * AST actual de {@code front}: solo se re-tokenizan y re-parsean las partes editadas.
+     * La fase cuenta como PARSE; el evento lleva {@code incremental = true}.
+     */
+    public static BizNode load(IncrementalParser front, Metrics m) {
+        JfrEvents.ProgramLoad ev = JfrEvents.active() ? new JfrEvents.ProgramLoad() : null;
+        if (ev != null) ev.begin();
+        long t0 = m.start();
+        BizNode program = front.program();
+        m.stop(Metrics.Phase.PARSE, t0);
+        if (ev != null) ev.end();
+        if (ev != null && ev.shouldCommit()) commit(ev, front.length(), front.tokenCount(), program, true);
+        return program;
+    }
+
+    private static void commit(JfrEvents.ProgramLoad ev, long sourceSize, int tokens, BizNode program, boolean incremental) {
+        ev.sourceSize = sourceSize;
+        ev.tokens = tokens;
+        ev.incremental = incremental;
+        for (BizNode n : program.children) {
+            if ("Rule".equals(n.kind)) ev.rules++;
+            else if ("Test".equals(n.kind)) ev.tests++;
+            else if (n instanceof TableNode t) ev.tests += t.rows();
+        }
+        ev.commit();
+    }
+}
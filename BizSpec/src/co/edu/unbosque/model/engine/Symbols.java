@@ -0,0 +1,38 @@
+package co.edu.unbosque.model.engine;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Tabla de símbolos de un programa: identificadores y rutas (a.b.c) internados al compilar.
+ * - Cada identificador distinto tiene una sola instancia de String;
+ *   como el String cachea su hash, buscar en el entorno con la instancia canónica no vuelve a hashear
+ *   y {@code equals} contra las claves que puso el propio programa termina en la comparación de identidad
+ * - Cada ruta se parte una sola vez y todas las expresiones que la leen comparten los segmentos
+ * Se llena al compilar y después solo se lee; los métodos son sincronizados porque la compilación
+ * puede ocurrir en otro hilo que la evaluación.
+ */
+public final class Symbols {
+
+    private final Map<String, String> names = new HashMap<>();
+    private final Map<String, String[]> paths = new HashMap<>();
+
+    /** Instancia canónica de {@code name}; la registra si es nueva. */
+    public synchronized String intern(String name) {
+        String canonical = names.putIfAbsent(name, name);
+        return canonical != null ? canonical : name;
+    }
+
+    /**
+     * Segmentos internados de {@code dotted} ("carrito . total" → [carrito, total]): se corta en cada '.'
+     * y se recorta cada segmento. No modificar el arreglo devuelto.
+     */
+    public synchronized String[] path(String dotted) {
+        String[] p = paths.get(dotted);
+        if (p != null) return p;
+        p = dotted.split("\\.");
+        for (int i = 0; i < p.length; i++) p[i] = intern(p[i].trim());
+        paths.put(dotted, p);
+        return p;
+    }
+}
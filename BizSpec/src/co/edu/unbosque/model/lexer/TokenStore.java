@@ -0,0 +1,161 @@
+package co.edu.unbosque.model.lexer;
+
+import java.util.Arrays;
+
+/**
+ * Tokens en arreglos paralelos (tipo, columna, largo en el fuente): unos 9 bytes por token.
+ * El lexema se reconstruye desde el fuente solo cuando se pide; la línea sale de un índice por línea.
+ * Lo llena {@link Tokenizer#tokenize(TokenStore)}; {@link #paged} une stores de una línea sin copiarlos.
+ */
+public class TokenStore {
+    private static final TokenType[] TYPES = TokenType.values();
+
+    private final String src;
+    private final int firstLine;
+    private final int[] lineStart;      // offset en el fuente de cada línea
+    private byte[] types = new byte[1024];
+    private int[] cols = new int[1024];
+    private int[] lens = new int[1024];
+    private int size;
+    private int[] lineFirst = new int[256]; // índice del primer token de cada línea
+    private int lines;
+    private TokenStore[] pages;         // vista por páginas: una por línea, o null
+    private int[] pageStart;            // índice del primer token de cada página
+
+    public TokenStore(String source) {
+        this(source, 1);
+    }
+
+    public TokenStore(String source, int firstLine) {
+        this.src = source == null ? "" : source;
+        this.firstLine = firstLine;
+        int count = 1;
+        for (int k = 0; k < src.length(); k++) if (src.charAt(k) == '\n') count++;
+        lineStart = new int[count];
+        for (int k = 0, l = 1; k < src.length(); k++) if (src.charAt(k) == '\n') lineStart[l++] = k + 1;
+    }
+
+    void add(TokenType type, int line, int col, int rawLen) {
+        if (size == types.length) {
+            int cap = size + (size >> 1);
+            types = Arrays.copyOf(types, cap);
+            cols = Arrays.copyOf(cols, cap);
+            lens = Arrays.copyOf(lens, cap);
+        }
+        while (lines <= line - firstLine) {
+            if (lines == lineFirst.length) lineFirst = Arrays.copyOf(lineFirst, lines + (lines >> 1));
+            lineFirst[lines++] = size;
+        }
+        types[size] = (byte) type.ordinal();
+        cols[size] = col;
+        lens[size] = rawLen;
+        size++;
+    }
+
+    /**
+     * Documento armado con un store por línea (p. ej. los de {@code IncrementalParser}): la página k es la
+     * línea {@code firstLine + k} y aporta solo los tokens de su primera línea, así el EOF que sigue a su
+     * '\n' queda fuera. Las páginas no se copian ni se deben modificar después.
+     */
+    public static TokenStore paged(TokenStore[] pages, int firstLine) {
+        TokenStore s = new TokenStore("", firstLine);
+        s.pages = pages;
+        s.pageStart = new int[pages.length];
+        for (int k = 0; k < pages.length; k++) {
+            s.pageStart[k] = s.size;
+            s.size += pages[k].firstTokenOfLine(pages[k].firstLine + 1);
+        }
+        return s;
+    }
+
+    public int size() { return size; }
+
+    public TokenType type(int i) {
+        if (pages != null) { int p = page(i); return pages[p].type(i - pageStart[p]); }
+        return TYPES[types[i]];
+    }
+
+    public int col(int i) {
+        if (pages != null) { int p = page(i); return pages[p].col(i - pageStart[p]); }
+        return cols[i];
+    }
+
+    public int line(int i) {
+        if (pages != null) return page(i) + firstLine;
+        int lo = 0, hi = lines - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (lineFirst[mid] <= i) lo = mid; else hi = mid - 1;
+        }
+        return lo + firstLine;
+    }
+
+    /** Índice del primer token en la línea {@code line} o después; {@code size()} si no hay. */
+    public int firstTokenOfLine(int line) {
+        int k = line - firstLine;
+        if (k <= 0) return 0;
+        if (pages != null) return k >= pages.length ? size : pageStart[k];
+        return k >= lines ? size : lineFirst[k];
+    }
+
+    public String lexeme(int i) {
+        if (pages != null) { int p = page(i); return pages[p].lexeme(i - pageStart[p]); }
+        TokenType t = type(i);
+        switch (t) {
+            case LBRACE: return "{";
+            case RBRACE: return "}";
+            case LPAREN: return "(";
+            case RPAREN: return ")";
+            case COMMA: return ",";
+            case DOT: return ".";
+            case EQ: return "=";
+            case EQEQ: return "==";
+            case NE: return "!=";
+            case GE: return ">=";
+            case LE: return "<=";
+            case GT: return ">";
+            case LT: return "<";
+            case PLUS: return "+";
+            case MINUS: return "-";
+            case STAR: return "*";
+            case SLASH: return "/";
+            case NEWLINE: return "\n";
+            case EOF: return "";
+            default:
+        }
+        int from = lineStart[line(i) - firstLine] + cols[i] - 1;
+        if (t == TokenType.STRING) return unescape(from + 1, from + lens[i] - 1);
+        return src.substring(from, from + lens[i]);
+    }
+
+    public Token get(int i) {
+        return new Token(type(i), lexeme(i), line(i), col(i));
+    }
+
+    /** Última página que empieza en el token {@code i} o antes. */
+    private int page(int i) {
+        int lo = 0, hi = pages.length - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (pageStart[mid] <= i) lo = mid; else hi = mid - 1;
+        }
+        return lo;
+    }
+
+    /** Mismas secuencias de escape que {@link Tokenizer}. */
+    private String unescape(int from, int to) {
+        StringBuilder sb = new StringBuilder(to - from);
+        for (int k = from; k < to; k++) {
+            char c = src.charAt(k);
+            if (c != '\\' || k + 1 >= to) { sb.append(c); continue; }
+            char e = src.charAt(++k);
+            switch (e) {
+                case 'n': sb.append('\n'); break;
+                case 't': sb.append('\t'); break;
+                case 'r': sb.append('\r'); break;
+                default: sb.append(e); break;
+            }
+        }
+        return sb.toString();
+    }
+}
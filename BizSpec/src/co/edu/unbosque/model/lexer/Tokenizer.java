@@ -1,20 +1,42 @@
 package co.edu.unbosque.model.lexer;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class Tokenizer {
     private final String src;
     private final int n;
     private int i = 0, line = 1, col = 1;
     private final List<Token> out = new ArrayList<>();
+    private TokenStore store;
+    private final Map<String, String> idents = new HashMap<>();   // una sola instancia por identificador
 
     public Tokenizer(String source) {
+        this(source, 1);
+    }
+
+    /** Tokeniza un fragmento que empieza en la lnea {@code firstLine} del documento. */
+    public Tokenizer(String source, int firstLine) {
         this.src = source == null ? "" : source;
         this.n = this.src.length();
+        this.line = firstLine;
     }
 
     public List<Token> tokenize() {
+        scan();
+        return out;
+    }
+
+    /** Tokeniza hacia un {@link TokenStore} compacto, sin crear objetos Token. */
+    public TokenStore tokenize(TokenStore store) {
+        this.store = store;
+        scan();
+        return store;
+    }
+
+    private void scan() {
         while (!eof()) {
             char c = peek();
             if (c == ' ' || c == '\t' || c == '\r') { advance(); continue; }
@@ -60,8 +82,7 @@ public class Tokenizer {
                     else throw error("Carcter no reconocido: '" + c + "'");
             }
         }
-        out.add(new Token(TokenType.EOF, "", line, col));
-        return out;
+        add(TokenType.EOF, "");
     }
 
     private void lexString() {
@@ -123,7 +144,7 @@ public class Tokenizer {
             case "null": add(TokenType.NULL, lex, startCol); return;
             case "undefined": add(TokenType.UNDEFINED, lex, startCol); return;
             default:
-                add(TokenType.IDENT, lex, startCol);
+                add(TokenType.IDENT, store != null ? lex : idents.computeIfAbsent(lex, k -> k), startCol);
         }
     }
 
@@ -138,8 +159,14 @@ public class Tokenizer {
     private void advance() { i++; col++; }
     private void advanceLine() { i++; line++; col = 1; }
 
-    private void add(TokenType t, String lexeme) { out.add(new Token(t, lexeme, line, col)); }
-    private void add(TokenType t, String lexeme, int startCol) { out.add(new Token(t, lexeme, line, startCol)); }
+    private void add(TokenType t, String lexeme) {
+        if (store != null) store.add(t, line, col, lexeme.length());
+        else out.add(new Token(t, lexeme, line, col));
+    }
+    private void add(TokenType t, String lexeme, int startCol) {
+        if (store != null) store.add(t, line, startCol, col - startCol);
+        else out.add(new Token(t, lexeme, line, startCol));
+    }
     private void addAndAdvance(TokenType t, String lexeme) { add(t, lexeme); advance(); }
 
     private boolean isDigit(char c) { return c >= '0' && c <= '9'; }
@@ -0,0 +1,300 @@
+package co.edu.unbosque.model.parser;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import co.edu.unbosque.model.ast.BizNode;
+import co.edu.unbosque.model.ast.TableNode;
+import co.edu.unbosque.model.lexer.Token;
+import co.edu.unbosque.model.lexer.TokenStore;
+import co.edu.unbosque.model.lexer.TokenType;
+import co.edu.unbosque.model.lexer.Tokenizer;
+
+/**
+ * Front end incremental para el editor:
+ * - Re-tokeniza solo las líneas editadas. El lexer no arrastra estado entre líneas
+ *   (strings y comentarios terminan en '\n'), así que se resincroniza en el siguiente salto de línea.
+ * - Re-parsea solo los bloques de nivel superior (rule / test / table) cuyas líneas cambiaron;
+ *   los demás conservan sus tokens y su AST (si se desplazaron, se reubican sin re-tokenizar).
+ * - Sin ediciones de por medio, {@link #program()} y {@link #firstError()} devuelven lo ya calculado
+ * El resultado equivale a {@code new Parser(new Tokenizer(texto).tokenize()).parseProgram()}.
+ * No es seguro entre hilos: un solo hilo a la vez. El AST devuelto no se modifica después
+ * (los bloques sin cambios se comparten entre versiones), así que se puede pasar a otro hilo.
+ */
+public class IncrementalParser {
+
+    private static final class Line {
+        final String text;
+        List<Token> toks;          // incluye el NEWLINE final, salvo en la última línea
+        TokenStore page;           // los mismos tokens en compacto, para tokenStore(); se arma al pedirlo
+        RuntimeException error;
+        int lexedAt;               // número de línea con el que se tokenizó
+        boolean newline;
+
+        Line(String text) { this.text = text; }
+    }
+
+    private static final class Block {
+        final List<Line> lines;
+        List<BizNode> nodes;
+        RuntimeException error;
+        int parsedAt;
+
+        Block(List<Line> lines) { this.lines = lines; }
+    }
+
+    private final List<Line> lines = new ArrayList<>();
+    private Map<Line, Block> blocks = new IdentityHashMap<>();
+    private int relexed, reparsed;
+    private int edits, cachedAt = -1;      // program() ya calculado para la edición cachedAt
+    private BizNode cached;
+    private RuntimeException cachedError;
+
+    public IncrementalParser(String text) {
+        String src = text == null ? "" : text;
+        replaceLines(0, 0, List.of(src.split("\n", -1)));
+    }
+
+    /** Reemplaza las líneas [first, first+removed) por {@code newLines} (sin '\n') y las re-tokeniza. */
+    public void replaceLines(int first, int removed, List<String> newLines) {
+        edits++;
+        List<Line> added = new ArrayList<>(newLines.size());
+        for (String s : newLines) added.add(new Line(s));
+        List<Line> window = lines.subList(first, first + removed);
+        window.clear();
+        window.addAll(added);
+        // la línea que queda antes del cambio puede haber dejado de ser la última
+        int from = Math.max(0, first - 1), to = Math.min(lines.size(), first + added.size() + 1);
+        for (int i = from; i < to; i++) {
+            Line l = lines.get(i);
+            boolean newline = i < lines.size() - 1;
+            if (l.toks == null && l.error == null || l.newline != newline) lex(l, i + 1, newline);
+        }
+    }
+
+    public int lineCount() { return lines.size(); }
+
+    /** Caracteres del documento, contando los saltos de línea. */
+    public long length() {
+        long n = lines.size() - 1;
+        for (Line l : lines) n += l.text.length();
+        return n;
+    }
+
+    /** Tokens del documento (con los NEWLINE y el EOF); lanza el primer error léxico. */
+    public int tokenCount() {
+        int n = 1;
+        for (int i = 0; i < lines.size(); i++) n += tokensOf(lines.get(i), i + 1).size();
+        return n;
+    }
+
+    /** Líneas re-tokenizadas y bloques re-parseados desde la última consulta. */
+    public String lastWork() {
+        String s = relexed + " líneas re-tokenizadas, " + reparsed + " bloques re-parseados";
+        relexed = 0; reparsed = 0;
+        return s;
+    }
+
+    /** Flujo completo de tokens (termina en EOF); lanza el primer error léxico. */
+    public List<Token> tokens() {
+        List<Token> out = new ArrayList<>();
+        for (int i = 0; i < lines.size(); i++) out.addAll(tokensOf(lines.get(i), i + 1));
+        Line last = lines.get(lines.size() - 1);
+        out.add(new Token(TokenType.EOF, "", lines.size(), last.text.length() + 1));
+        return out;
+    }
+
+    /**
+     * Los mismos tokens en un {@link TokenStore} paginado por línea; lanza el primer error léxico.
+     * Cada línea guarda su página y solo se vuelve a llenar (desde el lexer) si la línea se re-tokenizó.
+     */
+    public TokenStore tokenStore() {
+        TokenStore[] pages = new TokenStore[lines.size()];
+        for (int i = 0; i < pages.length; i++) pages[i] = page(lines.get(i), i + 1);
+        return TokenStore.paged(pages, 1);
+    }
+
+    /** AST del documento; lanza el primer error (léxico o sintáctico) en orden del documento. */
+    public BizNode program() {
+        if (cachedAt != edits) {
+            cachedAt = edits;
+            cached = null;
+            cachedError = null;
+            try {
+                cached = parseAll();
+            } catch (RuntimeException ex) {
+                cachedError = ex;
+            }
+        }
+        if (cachedError != null) throw cachedError;
+        return cached;
+    }
+
+    /** Primer error del documento, o null si tokeniza y parsea bien. */
+    public String firstError() {
+        try {
+            program();
+            return null;
+        } catch (RuntimeException ex) {
+            return ex.getMessage();
+        }
+    }
+
+    // ===== internos =====
+    private BizNode parseAll() {
+        for (int k = 0; k < lines.size(); k++) tokensOf(lines.get(k), k + 1);
+        Map<Line, Block> next = new IdentityHashMap<>();
+        List<BizNode> children = new ArrayList<>();
+        Token first = null;
+        int i = 0;
+        while (i < lines.size()) {
+            int start = i;
+            do { i++; } while (i < lines.size() && !startsBlock(lines.get(i), i + 1));
+            Block b = block(start, i, next);
+            if (b.error != null) throw exactError(start, b.error);
+            children.addAll(b.nodes);
+            if (first == null) {
+                List<Token> t = tokensOf(lines.get(start), start + 1);
+                if (!t.isEmpty()) first = t.get(0);
+            }
+        }
+        blocks = next;
+        BizNode prog = first == null
+                ? new BizNode("Program", "", lines.size(), lines.get(lines.size() - 1).text.length() + 1)
+                : new BizNode("Program", "", first.line, first.col);
+        for (BizNode c : children) prog.add(c);
+        return prog;
+    }
+
+    private Block block(int start, int end, Map<Line, Block> next) {
+        Block b = blocks.get(lines.get(start));
+        if (b == null || !sameLines(b.lines, start, end)) {
+            b = new Block(new ArrayList<>(lines.subList(start, end)));
+            parse(b, start + 1);
+        } else if (b.parsedAt != start + 1 && b.nodes != null) {
+            int delta = start + 1 - b.parsedAt;
+            List<BizNode> moved = new ArrayList<>(b.nodes.size());
+            for (BizNode n : b.nodes) moved.add(shift(n, delta));
+            b.nodes = moved;
+            b.parsedAt = start + 1;
+        } else if (b.parsedAt != start + 1) {
+            parse(b, start + 1);
+        }
+        next.put(lines.get(start), b);
+        return b;
+    }
+
+    /**
+     * Un bloque puede fallar al llegar a su propio EOF (p. ej. un test sin '}') cuando el parser completo
+     * habría fallado más adelante: se re-parsea desde el bloque para reportar el mismo error.
+     * El parser solo avanza, así que los tokens se piden línea a línea y la re-lectura se detiene
+     * en el primer error (como mucho unas líneas después del siguiente bloque), no en el fin del documento.
+     */
+    private RuntimeException exactError(int start, RuntimeException blockError) {
+        try {
+            new Parser(new Ahead(start)).parseProgram();
+            return blockError;
+        } catch (RuntimeException ex) {
+            return ex;
+        }
+    }
+
+    /** Tokens desde una línea, tokenizados a demanda; {@code size()} cuenta solo los ya leídos. */
+    private final class Ahead extends AbstractList<Token> {
+        private final List<Token> read = new ArrayList<>();
+        private int next;
+
+        Ahead(int line) { next = line; }
+
+        @Override public Token get(int k) {
+            while (k >= read.size() && next < lines.size()) {
+                read.addAll(tokensOf(lines.get(next), next + 1));
+                next++;
+            }
+            if (k < read.size()) return read.get(k);
+            return new Token(TokenType.EOF, "", lines.size(), lines.get(lines.size() - 1).text.length() + 1);
+        }
+
+        @Override public int size() { return read.size(); }
+    }
+
+    private boolean sameLines(List<Line> cached, int start, int end) {
+        if (cached.size() != end - start) return false;
+        for (int k = 0; k < cached.size(); k++) if (cached.get(k) != lines.get(start + k)) return false;
+        return true;
+    }
+
+    private void parse(Block b, int firstLine) {
+        reparsed++;
+        b.parsedAt = firstLine;
+        b.nodes = null;
+        b.error = null;
+        try {
+            List<Token> toks = new ArrayList<>();
+            for (int k = 0; k < b.lines.size(); k++) toks.addAll(tokensOf(b.lines.get(k), firstLine + k));
+            Line last = b.lines.get(b.lines.size() - 1);
+            toks.add(new Token(TokenType.EOF, "", firstLine + b.lines.size() - 1, last.text.length() + 1));
+            b.nodes = new ArrayList<>(new Parser(toks).parseProgram().children);
+        } catch (RuntimeException ex) {
+            b.error = ex;
+        }
+    }
+
+    private boolean startsBlock(Line l, int lineNo) {
+        List<Token> t = tokensOf(l, lineNo);
+        if (t.isEmpty()) return false;
+        String lx = t.get(0).lexeme;
+        return lx.equals("rule") || lx.equals("test") || lx.equals("table");
+    }
+
+    private List<Token> tokensOf(Line l, int lineNo) {
+        if (l.error != null) {
+            if (l.lexedAt != lineNo) lex(l, lineNo, l.newline);
+            if (l.error != null) throw l.error;
+        }
+        if (l.lexedAt != lineNo) {
+            List<Token> moved = new ArrayList<>(l.toks.size());
+            for (Token t : l.toks) moved.add(new Token(t.type, t.lexeme, lineNo, t.col));
+            l.toks = moved;
+            l.lexedAt = lineNo;
+        }
+        return l.toks;
+    }
+
+    /** La página no guarda su número de línea (la pone {@link TokenStore#paged}), así que no se rehace al desplazarse. */
+    private TokenStore page(Line l, int lineNo) {
+        if (l.error != null) tokensOf(l, lineNo);
+        if (l.page == null) {
+            String s = l.newline ? l.text + "\n" : l.text;
+            l.page = new Tokenizer(s).tokenize(new TokenStore(s));
+        }
+        return l.page;
+    }
+
+    private void lex(Line l, int lineNo, boolean newline) {
+        relexed++;
+        l.lexedAt = lineNo;
+        l.newline = newline;
+        l.error = null;
+        l.page = null;
+        try {
+            List<Token> toks = new Tokenizer(l.text, lineNo).tokenize();
+            toks.remove(toks.size() - 1); // EOF
+            if (newline) toks.add(new Token(TokenType.NEWLINE, "\n", lineNo, l.text.length() + 1));
+            l.toks = toks;
+        } catch (RuntimeException ex) {
+            l.toks = null;
+            l.error = ex;
+        }
+    }
+
+    private static BizNode shift(BizNode n, int delta) {
+        if (n instanceof TableNode t) return t.shifted(delta);
+        BizNode copy = new BizNode(n.kind, n.text, n.line + delta, n.col);
+        for (BizNode c : n.children) copy.add(shift(c, delta));
+        return copy;
+    }
+}
@@ -1,8 +1,11 @@
 package co.edu.unbosque.model.parser;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import co.edu.unbosque.model.ast.BizNode;
+import co.edu.unbosque.model.ast.TableNode;
 import co.edu.unbosque.model.lexer.Token;
 import co.edu.unbosque.model.lexer.TokenType;
 
@@ -39,7 +42,8 @@ public class Parser {
             if (is(TokenType.EOF)) break;
             if (isLex("rule")) prog.add(parseRule());
             else if (isLex("test")) prog.add(parseTest());
-            else throw err("Se esperaba 'rule' o 'test'");
+            else if (isLex("table")) prog.add(parseTable());
+            else throw err("Se esperaba 'rule', 'test' o 'table'");
         }
         consume(TokenType.EOF, "Se esperaba EOF");
         return prog;
@@ -97,12 +101,74 @@ public class Parser {
         return node("Expect", expr, start);
     }
 
+    /** Filas de datos en una sola pasada: celdas a un arreglo plano, sin nodos ni textos por fila. */
+    private BizNode parseTable() {
+        Token start = consumeLex("table", "Se esperaba 'table'");
+        Token name = consume(TokenType.STRING, "Se esperaba nombre de tabla");
+        consumeLex("given", "Se esperaba 'given'");
+        String[] givens = readColumns();
+        consumeLex("expect", "Se esperaba 'expect'");
+        String[] expects = readColumns();
+        consume(TokenType.LBRACE, "Se esperaba '{'");
+        int columns = givens.length + expects.length;
+        Object[] cells = new Object[columns * 16];
+        int[] offsets = new int[16];
+        int rows = 0;
+        while (!is(TokenType.RBRACE)) {
+            if (consumeIf(TokenType.NEWLINE)) continue;
+            if (is(TokenType.EOF)) throw err("Se esperaba '}'");
+            if (rows == offsets.length) {
+                offsets = Arrays.copyOf(offsets, rows * 2);
+                cells = Arrays.copyOf(cells, rows * 2 * columns);
+            }
+            offsets[rows] = t().line - start.line;
+            for (int c = 0; c < columns; c++) {
+                if (c > 0) consume(TokenType.COMMA, "Se esperaban " + columns + " columnas");
+                cells[rows * columns + c] = literal();
+            }
+            if (!is(TokenType.NEWLINE) && !is(TokenType.RBRACE)) throw err("Se esperaban " + columns + " columnas");
+            rows++;
+        }
+        consume(TokenType.RBRACE, "Se esperaba '}'");
+        consumeIf(TokenType.NEWLINE);
+        return new TableNode(stripQuotes(name.lexeme), start.line, start.col, givens, expects,
+                Arrays.copyOf(cells, rows * columns), Arrays.copyOf(offsets, rows), rows);
+    }
+
+    /** Rutas separadas por comas: a.b, c */
+    private String[] readColumns() {
+        List<String> out = new ArrayList<>();
+        do {
+            StringBuilder sb = new StringBuilder(consume(TokenType.IDENT, "Se esperaba una ruta").lexeme);
+            while (consumeIf(TokenType.DOT)) sb.append('.').append(consume(TokenType.IDENT, "Se esperaba IDENT después de '.'").lexeme);
+            out.add(sb.toString());
+        } while (consumeIf(TokenType.COMMA));
+        return out.toArray(new String[0]);
+    }
+
+    private Object literal() {
+        boolean negative = consumeIf(TokenType.MINUS);
+        if (is(TokenType.NUMBER)) {
+            double d = Double.parseDouble(toks.get(i++).lexeme);
+            return negative ? -d : d;
+        }
+        if (negative) throw err("Se esperaba un número después de '-'");
+        switch (tt()) {
+            case STRING: return toks.get(i++).lexeme;
+            case TRUE: i++; return Boolean.TRUE;
+            case FALSE: i++; return Boolean.FALSE;
+            case NULL: case UNDEFINED: i++; return null;
+            default: throw err("Se esperaba un literal");
+        }
+    }
+
     // --- helpers texto (MVP expresiones como string) ---
+    // El texto se vuelve a tokenizar al compilar: un STRING se reescribe entre comillas y con escapes
     private String readUntilKeyword(String kw) {
         StringBuilder sb = new StringBuilder();
         while (!isLex(kw) && tt() != TokenType.NEWLINE && tt() != TokenType.EOF) {
             if (sb.length() > 0) sb.append(' ');
-            sb.append(t().lexeme); i++;
+            source(sb, t()); i++;
         }
         return sb.toString();
     }
@@ -110,10 +176,26 @@ public class Parser {
         StringBuilder sb = new StringBuilder();
         while (tt() != TokenType.NEWLINE && tt() != TokenType.EOF) {
             if (sb.length() > 0) sb.append(' ');
-            sb.append(t().lexeme); i++;
+            source(sb, t()); i++;
         }
         return sb.toString();
     }
+    private static void source(StringBuilder sb, Token t) {
+        if (t.type != TokenType.STRING) { sb.append(t.lexeme); return; }
+        sb.append('"');
+        for (int k = 0; k < t.lexeme.length(); k++) {
+            char c = t.lexeme.charAt(k);
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\t': sb.append("\\t"); break;
+                case '\r': sb.append("\\r"); break;
+                default: sb.append(c);
+            }
+        }
+        sb.append('"');
+    }
     private BizNode node(String kind, String text, Token at) {
         return new BizNode(kind, text, at.line, at.col);
     }
@@ -0,0 +1,87 @@
+package co.edu.unbosque.model.report;
+
+import java.io.Writer;
+import java.util.Locale;
+
+import co.edu.unbosque.model.engine.Expr;
+import co.edu.unbosque.model.engine.RuleSet.Rule;
+
+/**
+ * JUnit XML incremental: un {@code <testcase>} por test, escrito al terminar ese test.
+ * Solo se retiene el texto del test en curso.
+ */
+public class JUnitXmlReporter extends StreamReporter {
+
+    private final StringBuilder rules = new StringBuilder();
+    private final StringBuilder failures = new StringBuilder();
+    private String error;
+
+    public JUnitXmlReporter(Writer out) { super(out); }
+
+    @Override
+    public void runStarted(int tests) {
+        emit("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        emit("<testsuite name=\"BizSpec\" tests=\"" + tests + "\">\n");
+    }
+
+    @Override
+    public void testStarted(String name) {
+        rules.setLength(0);
+        failures.setLength(0);
+        error = null;
+    }
+
+    @Override
+    public void ruleApplied(Rule rule, Object value) {
+        rules.append("rule \"").append(rule.name()).append("\" aplicada → ")
+             .append(rule.target()).append(" = ").append(Expr.stringify(value)).append('\n');
+    }
+
+    @Override
+    public void expectResult(String expr, boolean ok) {
+        if (!ok) failures.append(expr).append(" → FAIL\n");
+    }
+
+    @Override
+    public void testError(String name, RuntimeException ex) {
+        error = ex.getMessage();
+    }
+
+    @Override
+    public void testFinished(String name, boolean passed, long nanos) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("  <testcase classname=\"BizSpec\" name=\"").append(esc(name))
+          .append("\" time=\"").append(String.format(Locale.ROOT, "%.6f", nanos / 1e9)).append("\">\n");
+        if (error != null) {
+            sb.append("    <error message=\"").append(esc(error)).append("\">").append(esc(failures.toString())).append("</error>\n");
+        } else if (!passed) {
+            sb.append("    <failure message=\"expect FAIL\">").append(esc(failures.toString())).append("</failure>\n");
+        }
+        if (rules.length() > 0) {
+            sb.append("    <system-out>").append(esc(rules.toString())).append("</system-out>\n");
+        }
+        sb.append("  </testcase>\n");
+        emit(sb.toString());
+    }
+
+    @Override
+    public void runFinished(int passed, int failed) {
+        emit("</testsuite>\n");
+        super.runFinished(passed, failed);
+    }
+
+    static String esc(String s) {
+        StringBuilder sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '<': sb.append("&lt;"); break;
+                case '>': sb.append("&gt;"); break;
+                case '&': sb.append("&amp;"); break;
+                case '"': sb.append("&quot;"); break;
+                default: sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+}
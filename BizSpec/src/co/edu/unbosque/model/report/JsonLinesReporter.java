@@ -0,0 +1,81 @@
+package co.edu.unbosque.model.report;
+
+import java.io.Writer;
+
+import co.edu.unbosque.model.engine.Expr;
+import co.edu.unbosque.model.engine.RuleSet.Rule;
+
+/** JSON Lines: un objeto por evento, escrito apenas ocurre. */
+public class JsonLinesReporter extends StreamReporter {
+
+    private String test;
+
+    public JsonLinesReporter(Writer out) { super(out); }
+
+    @Override
+    public void runStarted(int tests) {
+        emit("{\"event\":\"runStarted\",\"tests\":" + tests + "}\n");
+    }
+
+    @Override
+    public void testStarted(String name) {
+        test = name;
+        emit("{\"event\":\"testStarted\",\"test\":" + str(name) + "}\n");
+    }
+
+    @Override
+    public void ruleApplied(Rule rule, Object value) {
+        emit("{\"event\":\"ruleApplied\",\"test\":" + str(test) + ",\"rule\":" + str(rule.name())
+                + ",\"line\":" + rule.line() + ",\"target\":" + str(rule.target())
+                + ",\"value\":" + value(value) + "}\n");
+    }
+
+    @Override
+    public void expectResult(String expr, boolean ok) {
+        emit("{\"event\":\"expectResult\",\"test\":" + str(test) + ",\"expect\":" + str(expr)
+                + ",\"ok\":" + ok + "}\n");
+    }
+
+    @Override
+    public void testError(String name, RuntimeException error) {
+        emit("{\"event\":\"testError\",\"test\":" + str(name) + ",\"error\":" + str(error.getMessage()) + "}\n");
+    }
+
+    @Override
+    public void testFinished(String name, boolean passed, long nanos) {
+        emit("{\"event\":\"testFinished\",\"test\":" + str(name) + ",\"result\":\"" + (passed ? "PASS" : "FAIL")
+                + "\",\"nanos\":" + nanos + "}\n");
+    }
+
+    @Override
+    public void runFinished(int passed, int failed) {
+        emit("{\"event\":\"runFinished\",\"passed\":" + passed + ",\"failed\":" + failed + "}\n");
+        super.runFinished(passed, failed);
+    }
+
+    private static String value(Object v) {
+        if (v == null) return "null";
+        if (v instanceof Boolean) return v.toString();
+        if (v instanceof Number n && Double.isFinite(n.doubleValue())) return n.toString();
+        return str(Expr.stringify(v));
+    }
+
+    static String str(String s) {
+        if (s == null) return "null";
+        StringBuilder sb = new StringBuilder(s.length() + 2).append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+                    else sb.append(c);
+            }
+        }
+        return sb.append('"').toString();
+    }
+}
@@ -0,0 +1,60 @@
+package co.edu.unbosque.model.report;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Base de los reporters que escriben texto incrementalmente sobre un {@link Writer}.
+ * Nada se acumula entre tests: la memoria no depende del tamaño de la suite.
+ */
+public abstract class StreamReporter implements TestReporter {
+
+    private static final int BUFFER = 64 * 1024;
+
+    protected final Writer out;
+
+    protected StreamReporter(Writer out) { this.out = out; }
+
+    /** Reporter según la extensión: .xml → JUnit XML, .jsonl/.ndjson → JSON Lines, otro → texto. */
+    public static StreamReporter open(Path file) throws IOException {
+        Writer w = writer(file);
+        String name = file.getFileName().toString().toLowerCase();
+        if (name.endsWith(".xml")) return new JUnitXmlReporter(w);
+        if (name.endsWith(".jsonl") || name.endsWith(".ndjson")) return new JsonLinesReporter(w);
+        return new TextReporter(w);
+    }
+
+    /** Writer UTF-8 con buffer sobre un FileChannel (trunca el archivo). */
+    public static Writer writer(Path file) throws IOException {
+        FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        return new BufferedWriter(Channels.newWriter(ch, StandardCharsets.UTF_8), BUFFER);
+    }
+
+    protected final void emit(String s) {
+        try {
+            out.write(s);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void runFinished(int passed, int failed) {
+        try {
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException { out.close(); }
+}
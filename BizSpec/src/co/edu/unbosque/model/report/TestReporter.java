@@ -0,0 +1,46 @@
+package co.edu.unbosque.model.report;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+import co.edu.unbosque.model.engine.RuleSet.Rule;
+
+/**
+ * Recibe los eventos de una corrida de tests a medida que ocurren,
+ * en orden: runStarted, (testStarted, ruleApplied*, expectResult*, testError?, testFinished)*, runFinished.
+ */
+public interface TestReporter extends Closeable {
+
+    default void runStarted(int tests) {}
+
+    default void testStarted(String name) {}
+
+    default void ruleApplied(Rule rule, Object value) {}
+
+    default void expectResult(String expr, boolean ok) {}
+
+    /** El test se cortó antes de terminar (p. ej. superó los límites del motor); cuenta como FAIL. */
+    default void testError(String name, RuntimeException error) {}
+
+    default void testFinished(String name, boolean passed, long nanos) {}
+
+    default void runFinished(int passed, int failed) {}
+
+    @Override
+    default void close() throws IOException {}
+
+    /** Reenvía cada evento a todos los reporters, en orden. */
+    static TestReporter all(TestReporter... reporters) {
+        if (reporters.length == 1) return reporters[0];
+        return new TestReporter() {
+            @Override public void runStarted(int tests) { for (TestReporter r : reporters) r.runStarted(tests); }
+            @Override public void testStarted(String name) { for (TestReporter r : reporters) r.testStarted(name); }
+            @Override public void ruleApplied(Rule rule, Object value) { for (TestReporter r : reporters) r.ruleApplied(rule, value); }
+            @Override public void expectResult(String expr, boolean ok) { for (TestReporter r : reporters) r.expectResult(expr, ok); }
+            @Override public void testError(String name, RuntimeException error) { for (TestReporter r : reporters) r.testError(name, error); }
+            @Override public void testFinished(String name, boolean passed, long nanos) { for (TestReporter r : reporters) r.testFinished(name, passed, nanos); }
+            @Override public void runFinished(int passed, int failed) { for (TestReporter r : reporters) r.runFinished(passed, failed); }
+            @Override public void close() throws IOException { for (TestReporter r : reporters) r.close(); }
+        };
+    }
+}
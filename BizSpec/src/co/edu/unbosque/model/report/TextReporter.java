@@ -0,0 +1,52 @@
+package co.edu.unbosque.model.report;
+
+import java.io.Writer;
+
+import co.edu.unbosque.model.engine.Expr;
+import co.edu.unbosque.model.engine.RuleSet.Rule;
+
+/** Formato de consola de BizSpec Studio (el mismo de {@code Evaluator.run}). */
+public class TextReporter extends StreamReporter {
+
+    private boolean empty;
+
+    public TextReporter(Writer out) { super(out); }
+
+    @Override
+    public void runStarted(int tests) {
+        emit("== BizSpec :: Run Tests ==\n");
+        empty = tests == 0;
+        if (empty) emit("(No hay tests)\n");
+    }
+
+    @Override
+    public void testStarted(String name) {
+        emit("\nTest: " + name + "\n");
+    }
+
+    @Override
+    public void ruleApplied(Rule rule, Object value) {
+        emit("  ✓ rule \"" + rule.name() + "\" aplicada → " + rule.target() + " = " + Expr.stringify(value) + "\n");
+    }
+
+    @Override
+    public void expectResult(String expr, boolean ok) {
+        emit((ok ? "  ✓ " : "  ✗ ") + expr + (ok ? " → PASS\n" : " → FAIL\n"));
+    }
+
+    @Override
+    public void testError(String name, RuntimeException error) {
+        emit("  ✗ " + error.getMessage() + " → ERROR\n");
+    }
+
+    @Override
+    public void testFinished(String name, boolean passed, long nanos) {
+        emit(passed ? "→ RESULTADO: PASS\n" : "→ RESULTADO: FAIL\n");
+    }
+
+    @Override
+    public void runFinished(int passed, int failed) {
+        if (!empty) emit("\nResumen: " + passed + " PASS, " + failed + " FAIL\n");
+        super.runFinished(passed, failed);
+    }
+}
@@ -0,0 +1,597 @@
+package co.edu.unbosque.model.runner;
+
+import java.io.*;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.Instant;
+import java.util.*;
+import java.util.stream.Stream;
+
+import co.edu.unbosque.model.engine.RuleSet;
+import co.edu.unbosque.model.engine.RuleSet.Rule;
+
+/**
+ * Historial persistente de corridas de suites, en un directorio:
+ * - Cada corrida se agrega como un segmento propio ({@code <id>.seg}, id = milisegundos de inicio):
+ *   por archivo su ruta, el hash de sus reglas y sus nombres de regla; por test un registro corto
+ *   con nombre, resultado, duración y reglas aplicadas (índices). La duración de un test es el CPU de su
+ *   hilo: una pausa de GC en medio de un test no lo hace parecer más lento; la de la suite es de reloj
+ * - Con más de {@link #SEGMENTS} segmentos, los más viejos se compactan en un bloque columnar
+ *   ({@code <primero>.dat}) con un diccionario de nombres común, que se lee con mmap; se conservan
+ *   los bloques de las últimas {@link #RETAINED_RUNS} corridas
+ * - {@link #compare} contrasta la última corrida con las anteriores y marca las desaceleraciones
+ *   significativas de tests, de reglas (por los tests que las aplican) y de la suite
+ * Nada se reescribe en el lugar: un segmento a medio escribir (corrida cortada) se ignora.
+ */
+public final class RunHistory {
+
+    /** Segmentos sueltos a partir de los cuales se compacta. */
+    static final int SEGMENTS = 8;
+    /** Corridas que se conservan como mínimo; se borran bloques enteros, así que pueden quedar algunas más. */
+    static final int RETAINED_RUNS = 100;
+    /** Corridas anteriores con que se compara si no se indica otra ventana. */
+    public static final int DEFAULT_BASELINE = 10;
+    /** Tests que lista {@link Comparison#toString()}; un cambio de reglas puede hacer más lentos a miles. */
+    private static final int SHOWN_TESTS = 20;
+
+    // criterios de desaceleración significativa
+    private static final double RATIO = 1.5;             // al menos 1.5× la mediana de la base
+    private static final double TEST_Z = 3.5;            // z robusto (mediana y MAD) de un test o de la suite
+    private static final double RULE_Z = 3.29;           // Mann-Whitney entre tests de la regla, p < 0.001
+    private static final long MIN_DELTA = 100_000;       // 100 µs para una sola medición (un test, la suite)
+    private static final long MIN_RULE_DELTA = 2_000;    // 2 µs entre medianas de muchos tests
+    private static final int MIN_SAMPLES = 3, MIN_RULE_SAMPLES = 5;
+    private static final int MAX_RULE_SAMPLES = 20_000;  // por lado; más no cambia el resultado y cuesta ordenarlas
+
+    private static final int SEGMENT_MAGIC = 0x425A4831, BLOCK_MAGIC = 0x425A4331;   // "BZH1", "BZC1"
+    private static final byte FILE = 1, TEST = 2, END = 3;
+
+    /** Corrida leída del historial, en columnas: la entrada {@code k} es un test de un archivo. */
+    public static final class Run {
+        public final long id, nanos;
+        final String[] files, tests;
+        final boolean[] passed;
+        final long[] durations, ruleSets;
+        final String[][] rules;   // nombres de las reglas aplicadas
+
+        Run(long id, long nanos, int n) {
+            this.id = id;
+            this.nanos = nanos;
+            this.files = new String[n];
+            this.tests = new String[n];
+            this.passed = new boolean[n];
+            this.durations = new long[n];
+            this.ruleSets = new long[n];
+            this.rules = new String[n][];
+        }
+
+        public int size() { return tests.length; }
+
+        @Override
+        public String toString() {
+            return Instant.ofEpochMilli(id) + String.format(" (%d tests, %.1f ms)", size(), nanos / 1e6);
+        }
+    }
+
+    /** Desaceleración marcada: {@code kind} es "suite", "test" o "regla"; tiempos en nanosegundos. */
+    public record Slowdown(String kind, String file, String name, double baseline, double latest, int samples,
+                           boolean rulesChanged) {
+        @Override
+        public String toString() {
+            String what = kind.equals("suite") ? "suite" : kind + " " + file + " :: \"" + name + "\"";
+            return String.format("⚠ %s: %.2f ms vs %.2f ms (×%.1f, %d muestras)%s", what, latest / 1e6, baseline / 1e6,
+                    latest / baseline, samples, rulesChanged ? " — cambiaron las reglas" : "");
+        }
+    }
+
+    /**
+     * Última corrida contra la ventana de corridas anteriores ({@code baseline}, de la más vieja a la más nueva);
+     * {@code slowdowns}: la suite, después las reglas y después los tests, de mayor a menor proporción.
+     */
+    public record Comparison(Run latest, List<Run> baseline, List<Slowdown> slowdowns) {
+        public boolean ok() { return slowdowns.isEmpty(); }
+
+        @Override
+        public String toString() {
+            StringBuilder out = new StringBuilder("== Historial: ").append(latest).append(" contra ")
+                    .append(baseline.size()).append(" corrida(s) anteriores ==\n");
+            out.append("Tendencia de la suite (ms):");
+            for (Run r : baseline) out.append(String.format(" %.1f", r.nanos / 1e6));
+            out.append(String.format(" → %.1f%n", latest.nanos / 1e6));
+            int tests = 0;
+            for (Slowdown s : slowdowns) {
+                if (s.kind.equals("test") && ++tests > SHOWN_TESTS) continue;
+                out.append(s).append("\n");
+            }
+            if (tests > SHOWN_TESTS) out.append("… y ").append(tests - SHOWN_TESTS).append(" tests más\n");
+            if (slowdowns.isEmpty()) out.append("Sin desaceleraciones significativas\n");
+            return out.toString();
+        }
+    }
+
+    private final Path dir;
+
+    public RunHistory(Path dir) { this.dir = dir; }
+
+    /** Hash de las reglas tal como corrieron: nombre, condición, target y valor de cada una, en orden. */
+    public static long hash(RuleSet rules) {
+        long h = 0xcbf29ce484222325L;   // FNV-1a de 64 bits
+        for (Rule r : rules.rules()) {
+            for (String s : new String[] { r.name(), r.condition().source, r.target(), r.value().source }) {
+                for (int i = 0; i < s.length(); i++) h = (h ^ s.charAt(i)) * 0x100000001b3L;
+                h = (h ^ 0xFFFF) * 0x100000001b3L;
+            }
+        }
+        return h;
+    }
+
+    // ===== escritura =====
+    /**
+     * Agrega la corrida {@code s} (los archivos que no compilaron no se registran); devuelve su id.
+     * {@code s} tiene que tener el detalle de cada caso ({@link SuiteRunner#run(List, co.edu.unbosque.model.engine.Coverage, boolean)}).
+     */
+    public long append(SuiteRunner.Summary s) throws IOException {
+        for (SuiteRunner.FileResult f : s.files()) {
+            if (f.rules() == null) continue;
+            boolean detailed = f.outcomes().size() == f.passed() + f.failed();
+            for (SpecFile.Outcome o : f.outcomes()) detailed &= o.applied() != null;
+            if (!detailed) throw new IllegalArgumentException("La corrida no guardó el detalle de cada caso: " + f.path());
+        }
+        Files.createDirectories(dir);
+        List<Long> segments = segments();
+        long id = System.currentTimeMillis();
+        long last = segments.isEmpty() ? Long.MIN_VALUE : segments.get(segments.size() - 1);
+        if (id <= last) id = last + 1;   // dos corridas en el mismo milisegundo, o el reloj retrocedió
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(segment(id), StandardOpenOption.CREATE_NEW), 1 << 16))) {
+            out.writeInt(SEGMENT_MAGIC);
+            out.writeLong(id);
+            for (SuiteRunner.FileResult f : s.files()) {
+                if (f.rules() == null) continue;
+                List<Rule> rules = f.rules().rules();
+                out.writeByte(FILE);
+                string(out, f.path().toString());
+                out.writeLong(hash(f.rules()));
+                varint(out, rules.size());
+                for (Rule r : rules) string(out, r.name());
+                for (SpecFile.Outcome o : f.outcomes()) {
+                    out.writeByte(TEST);
+                    string(out, o.name());
+                    out.writeBoolean(o.passed());
+                    varint(out, o.cpuNanos() < 0 ? o.nanos() : o.cpuNanos());
+                    varint(out, o.applied().cardinality());
+                    for (int r = o.applied().nextSetBit(0); r >= 0; r = o.applied().nextSetBit(r + 1)) varint(out, r);
+                }
+            }
+            out.writeByte(END);
+            out.writeLong(s.nanos());
+        }
+        if (segments.size() + 1 > SEGMENTS) compact();
+        return id;
+    }
+
+    /** Pasa todos los segmentos salvo el último a un bloque nuevo y borra los bloques que sobran. */
+    public synchronized void compact() throws IOException {
+        List<Long> segments = segments();
+        if (segments.size() < 2) return;
+        List<Long> old = segments.subList(0, segments.size() - 1);
+        Set<Long> compacted = new HashSet<>();
+        for (Block b : blocks()) for (long[] r : b.runs) compacted.add(r[0]);
+        List<Run> runs = new ArrayList<>();
+        for (long id : old) {
+            Run r = compacted.contains(id) ? null : readSegment(segment(id));
+            if (r != null) runs.add(r);
+        }
+        if (!runs.isEmpty()) {
+            Path tmp = dir.resolve(runs.get(0).id + ".tmp");
+            writeBlock(tmp, runs);
+            Files.move(tmp, dir.resolve(runs.get(0).id + ".dat"), StandardCopyOption.ATOMIC_MOVE);
+        }
+        for (long id : old) Files.deleteIfExists(segment(id));
+        // bloques enteros, del más viejo al más nuevo, mientras los que quedan sigan cubriendo RETAINED_RUNS
+        List<Block> blocks = blocks();
+        int total = 0;
+        for (Block b : blocks) total += b.runs.length;
+        for (Block b : blocks) {
+            if (total - b.runs.length < RETAINED_RUNS) break;
+            total -= b.runs.length;
+            Files.delete(b.path);
+        }
+    }
+
+    // ===== lectura =====
+    /** Ids de las corridas completas guardadas, de la más vieja a la más nueva. */
+    public List<Long> runs() throws IOException {
+        TreeSet<Long> ids = new TreeSet<>();
+        for (Block b : blocks()) for (long[] r : b.runs) ids.add(r[0]);
+        for (long id : segments()) if (readSegment(segment(id)) != null) ids.add(id);
+        return new ArrayList<>(ids);
+    }
+
+    /** Las últimas {@code n} corridas completas, de la más vieja a la más nueva. */
+    public List<Run> last(int n) throws IOException {
+        LinkedList<Run> out = new LinkedList<>();
+        Set<Long> seen = new HashSet<>();
+        List<Long> segments = segments();
+        for (int i = segments.size() - 1; i >= 0 && out.size() < n; i--) {
+            Run r = readSegment(segment(segments.get(i)));
+            if (r != null && seen.add(r.id)) out.addFirst(r);
+        }
+        List<Block> blocks = blocks();
+        for (int b = blocks.size() - 1; b >= 0 && out.size() < n; b--) {
+            Block block = blocks.get(b);
+            for (int k = block.runs.length - 1; k >= 0 && out.size() < n; k--) {
+                if (seen.add(block.runs[k][0])) out.addFirst(block.run(k));
+            }
+        }
+        out.sort(Comparator.comparingLong(r -> r.id));
+        return out;
+    }
+
+    /** Última corrida contra las {@code window} anteriores; null si no hay ninguna corrida. */
+    public Comparison compare(int window) throws IOException {
+        List<Run> runs = last(window + 1);
+        if (runs.isEmpty()) return null;
+        Run latest = runs.get(runs.size() - 1);
+        List<Run> baseline = runs.subList(0, runs.size() - 1);
+        List<Slowdown> out = new ArrayList<>();
+
+        double[] totals = new double[baseline.size()];
+        for (int i = 0; i < totals.length; i++) totals[i] = baseline.get(i).nanos;
+        if (significant(latest.nanos, totals, totals.length)) {
+            out.add(new Slowdown("suite", "", "", median(totals, totals.length), latest.nanos, totals.length, false));
+        }
+
+        // por test: su duración en la base y el hash de reglas de la vez más reciente que corrió
+        Map<Key, DoubleList> samples = new HashMap<>();
+        Map<Key, Long> lastHash = new HashMap<>();
+        // por regla: duraciones de los tests que la aplicaron, en la base y en la última
+        Map<Key, DoubleList> ruleBase = new HashMap<>(), ruleLatest = new LinkedHashMap<>();
+        Map<Key, Long> ruleHash = new HashMap<>();
+        Map<String, Long> latestHash = new HashMap<>();
+        for (Run r : baseline) {
+            for (int k = 0; k < r.size(); k++) {
+                Key key = new Key(r.files[k], r.tests[k]);
+                samples.computeIfAbsent(key, x -> new DoubleList()).add(r.durations[k]);
+                lastHash.put(key, r.ruleSets[k]);
+                for (String rule : r.rules[k]) {
+                    Key rk = new Key(r.files[k], rule);
+                    ruleBase.computeIfAbsent(rk, x -> new DoubleList()).add(r.durations[k]);
+                    ruleHash.put(rk, r.ruleSets[k]);
+                }
+            }
+        }
+        for (int k = 0; k < latest.size(); k++) {
+            latestHash.put(latest.files[k], latest.ruleSets[k]);
+            for (String rule : latest.rules[k]) {
+                ruleLatest.computeIfAbsent(new Key(latest.files[k], rule), x -> new DoubleList()).add(latest.durations[k]);
+            }
+            Key key = new Key(latest.files[k], latest.tests[k]);
+            DoubleList xs = samples.get(key);
+            if (xs != null && significant(latest.durations[k], xs.xs, xs.size)) {
+                out.add(new Slowdown("test", key.file, key.name, median(xs.xs, xs.size), latest.durations[k],
+                        xs.size, lastHash.get(key) != latest.ruleSets[k]));
+            }
+        }
+        for (Map.Entry<Key, DoubleList> e : ruleLatest.entrySet()) {
+            Key key = e.getKey();
+            DoubleList now = e.getValue().sample(MAX_RULE_SAMPLES), before = ruleBase.get(key);
+            if (before == null || now.size < MIN_RULE_SAMPLES || before.size < MIN_RULE_SAMPLES) continue;
+            before = before.sample(MAX_RULE_SAMPLES);
+            double mNow = median(now.xs, now.size), mBefore = median(before.xs, before.size);
+            if (mNow >= RATIO * mBefore && mNow - mBefore >= MIN_RULE_DELTA && mannWhitney(now, before) > RULE_Z) {
+                out.add(new Slowdown("regla", key.file, key.name, mBefore, mNow, e.getValue().size,
+                        !ruleHash.get(key).equals(latestHash.get(key.file))));
+            }
+        }
+        List<String> kinds = List.of("suite", "regla", "test");
+        out.sort(Comparator.comparingInt((Slowdown s) -> kinds.indexOf(s.kind))
+                .thenComparing(Comparator.comparingDouble((Slowdown s) -> s.latest / s.baseline).reversed()));
+        return new Comparison(latest, List.copyOf(baseline), Collections.unmodifiableList(out));
+    }
+
+    // ===== estadística =====
+    /** {@code x} contra {@code n} muestras: proporción, diferencia mínima y z robusto (mediana y MAD). */
+    private static boolean significant(double x, double[] xs, int n) {
+        if (n < MIN_SAMPLES) return false;
+        double m = median(xs, n);
+        if (x < RATIO * m || x - m < MIN_DELTA) return false;
+        double[] dev = new double[n];
+        for (int i = 0; i < n; i++) dev[i] = Math.abs(xs[i] - m);
+        double mad = median(dev, n);
+        return mad == 0 || 0.6745 * (x - m) / mad > TEST_Z;
+    }
+
+    private static double median(double[] xs, int n) {
+        double[] s = Arrays.copyOf(xs, n);
+        Arrays.sort(s);
+        return n % 2 == 1 ? s[n / 2] : (s[n / 2 - 1] + s[n / 2]) / 2;
+    }
+
+    /** z de Mann-Whitney (aproximación normal, sin corrección por empates): {@code a} tarda más que {@code b}. */
+    private static double mannWhitney(DoubleList a, DoubleList b) {
+        int n1 = a.size, n2 = b.size, n = n1 + n2;
+        long[] keyed = new long[n];   // duración en los bits altos, origen en el bit bajo; las duraciones son enteras
+        for (int i = 0; i < n1; i++) keyed[i] = (long) a.xs[i] << 1 | 1;
+        for (int i = 0; i < n2; i++) keyed[n1 + i] = (long) b.xs[i] << 1;
+        Arrays.sort(keyed);
+        double r1 = 0;
+        for (int i = 0; i < n; ) {
+            int j = i;
+            while (j < n && keyed[j] >> 1 == keyed[i] >> 1) j++;
+            double rank = (i + 1 + j) / 2.0;   // rango promedio de los empatados
+            for (int k = i; k < j; k++) if ((keyed[k] & 1) == 1) r1 += rank;
+            i = j;
+        }
+        double u = r1 - n1 * (n1 + 1) / 2.0;
+        return (u - n1 * (double) n2 / 2) / Math.sqrt(n1 * (double) n2 * (n + 1) / 12);
+    }
+
+    /** Test o regla de un archivo. */
+    private record Key(String file, String name) {}
+
+    private static final class DoubleList {
+        double[] xs = new double[8];
+        int size;
+
+        void add(double x) {
+            if (size == xs.length) xs = Arrays.copyOf(xs, size * 2);
+            xs[size++] = x;
+        }
+
+        /** A lo sumo {@code max} muestras tomadas a paso fijo (determinista entre consultas). */
+        DoubleList sample(int max) {
+            if (size <= max) return this;
+            DoubleList out = new DoubleList();
+            out.xs = new double[max];
+            for (int i = 0; i < max; i++) out.xs[i] = xs[(int) ((long) i * size / max)];
+            out.size = max;
+            return out;
+        }
+    }
+
+    // ===== segmentos =====
+    private Path segment(long id) { return dir.resolve(id + ".seg"); }
+
+    private List<Long> segments() throws IOException {
+        return ids(".seg");
+    }
+
+    private List<Long> ids(String ext) throws IOException {
+        if (!Files.isDirectory(dir)) return List.of();
+        List<Long> ids = new ArrayList<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            files.forEach(p -> {
+                String name = p.getFileName().toString();
+                if (!name.endsWith(ext)) return;
+                try {
+                    ids.add(Long.parseLong(name.substring(0, name.length() - ext.length())));
+                } catch (NumberFormatException ignored) {
+                    // no es del historial
+                }
+            });
+        }
+        Collections.sort(ids);
+        return ids;
+    }
+
+    /** Corrida de un segmento; null si está incompleto o no es un segmento. */
+    private static Run readSegment(Path p) throws IOException {
+        ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(p));
+        List<String> files = new ArrayList<>(), tests = new ArrayList<>();
+        List<String[]> applied = new ArrayList<>();
+        List<Long> hashes = new ArrayList<>();
+        DoubleList durations = new DoubleList();
+        BitSet passed = new BitSet();
+        try {
+            if (in.getInt() != SEGMENT_MAGIC) return null;
+            long id = in.getLong();
+            String file = null;
+            Long hash = 0L;   // uno por archivo, compartido por sus tests
+            String[] names = new String[0];
+            while (true) {
+                byte kind = in.get();
+                if (kind == FILE) {
+                    file = string(in);
+                    hash = in.getLong();
+                    names = new String[(int) varint(in)];
+                    for (int i = 0; i < names.length; i++) names[i] = string(in);
+                } else if (kind == TEST) {
+                    tests.add(string(in));
+                    if (in.get() != 0) passed.set(tests.size() - 1);
+                    durations.add(varint(in));
+                    String[] rules = new String[(int) varint(in)];
+                    for (int i = 0; i < rules.length; i++) rules[i] = names[(int) varint(in)];
+                    files.add(file);
+                    hashes.add(hash);
+                    applied.add(rules);
+                } else if (kind == END) {
+                    Run r = new Run(id, in.getLong(), tests.size());
+                    for (int k = 0; k < tests.size(); k++) {
+                        r.files[k] = files.get(k);
+                        r.tests[k] = tests.get(k);
+                        r.passed[k] = passed.get(k);
+                        r.durations[k] = (long) durations.xs[k];
+                        r.ruleSets[k] = hashes.get(k);
+                        r.rules[k] = applied.get(k);
+                    }
+                    return r;
+                } else {
+                    return null;
+                }
+            }
+        } catch (BufferUnderflowException | IndexOutOfBoundsException ex) {
+            return null;   // corrida cortada antes de terminar
+        }
+    }
+
+    private static void string(DataOutput out, String s) throws IOException {
+        byte[] b = s.getBytes(StandardCharsets.UTF_8);
+        varint(out, b.length);
+        out.write(b);
+    }
+
+    private static String string(ByteBuffer in) {
+        int n = (int) varint(in);
+        String s = new String(in.array(), in.position(), n, StandardCharsets.UTF_8);
+        in.position(in.position() + n);
+        return s;
+    }
+
+    private static void varint(DataOutput out, long v) throws IOException {
+        while ((v & ~0x7FL) != 0) {
+            out.writeByte((int) (v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        out.writeByte((int) v);
+    }
+
+    private static long varint(ByteBuffer in) {
+        long v = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = in.get();
+            v |= (long) (b & 0x7F) << shift;
+            if (b >= 0) return v;
+        }
+    }
+
+    // ===== bloques compactados =====
+    /*
+     * Bloque: magic, corridas (id, nanos, primer grupo, grupos), diccionario de cadenas (rutas, tests y reglas),
+     * grupos (archivo y hash de reglas de registros seguidos de una corrida, con el inicio de cada uno más un
+     * centinela) y los registros en columnas de ancho fijo: test, duración, resultado y fin de sus reglas
+     * aplicadas en el arreglo final de ids de cadena.
+     */
+    private static void writeBlock(Path p, List<Run> runs) throws IOException {
+        Map<String, Integer> strings = new LinkedHashMap<>();
+        List<int[]> groups = new ArrayList<>();   // primer registro, archivo
+        List<Long> hashes = new ArrayList<>();
+        int[] firstGroup = new int[runs.size()];
+        int records = 0, applied = 0, bytes = 0;
+        for (int i = 0; i < runs.size(); i++) {
+            Run r = runs.get(i);
+            firstGroup[i] = groups.size();
+            for (int k = 0; k < r.size(); k++, records++) {
+                if (k == 0 || !r.files[k].equals(r.files[k - 1]) || r.ruleSets[k] != r.ruleSets[k - 1]) {
+                    groups.add(new int[] { records, id(strings, r.files[k]) });
+                    hashes.add(r.ruleSets[k]);
+                }
+                id(strings, r.tests[k]);
+                for (String rule : r.rules[k]) id(strings, rule);
+                applied += r.rules[k].length;
+            }
+        }
+        byte[][] encoded = new byte[strings.size()][];
+        int s = 0;
+        for (String str : strings.keySet()) bytes += 4 + (encoded[s++] = str.getBytes(StandardCharsets.UTF_8)).length;
+        ByteBuffer b = ByteBuffer.allocate(8 + 24 * runs.size() + 4 + bytes + 4 + 16 * groups.size() + 4
+                + 17 * records + 4 + 4 * applied);
+        b.putInt(BLOCK_MAGIC).putInt(runs.size());
+        for (int i = 0; i < runs.size(); i++) {
+            int next = i + 1 < runs.size() ? firstGroup[i + 1] : groups.size();
+            b.putLong(runs.get(i).id).putLong(runs.get(i).nanos).putInt(firstGroup[i]).putInt(next - firstGroup[i]);
+        }
+        b.putInt(encoded.length);
+        for (byte[] e : encoded) b.putInt(e.length).put(e);
+        b.putInt(groups.size());
+        for (int g = 0; g < groups.size(); g++) b.putInt(groups.get(g)[0]).putInt(groups.get(g)[1]).putLong(hashes.get(g));
+        b.putInt(records);   // centinela de los grupos y cantidad de registros
+        for (Run r : runs) for (String t : r.tests) b.putInt(strings.get(t));
+        for (Run r : runs) for (long d : r.durations) b.putLong(d);
+        for (Run r : runs) for (boolean ok : r.passed) b.put((byte) (ok ? 1 : 0));
+        int end = 0;
+        for (Run r : runs) for (String[] rs : r.rules) b.putInt(end += rs.length);
+        b.putInt(applied);
+        for (Run r : runs) for (String[] rs : r.rules) for (String rule : rs) b.putInt(strings.get(rule));
+        try (FileChannel ch = FileChannel.open(p, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            b.flip();
+            while (b.hasRemaining()) ch.write(b);
+        }
+    }
+
+    private static int id(Map<String, Integer> strings, String s) {
+        Integer id = strings.putIfAbsent(s, strings.size());
+        return id == null ? strings.size() - 1 : id;
+    }
+
+    private List<Block> blocks() throws IOException {
+        List<Block> out = new ArrayList<>();
+        for (long id : ids(".dat")) out.add(new Block(dir.resolve(id + ".dat")));
+        return out;
+    }
+
+    /**
+     * Bloque compactado. Al abrirlo solo se lee la tabla de corridas; la primera corrida que se pide
+     * mapea el archivo y lee el diccionario, y sus registros se leen de las columnas sin cargar el resto.
+     */
+    private static final class Block {
+        final Path path;
+        final long[][] runs;   // id, nanos, primer grupo, grupos
+        MappedByteBuffer buf;
+        String[] strings;
+        int groupCount, records, groups, tests, durations, passed, ends, applied;
+
+        Block(Path path) throws IOException {
+            this.path = path;
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+                if (in.readInt() != BLOCK_MAGIC) throw new IOException("No es un bloque de historial: " + path);
+                runs = new long[in.readInt()][];
+                for (int i = 0; i < runs.length; i++) runs[i] = new long[] { in.readLong(), in.readLong(), in.readInt(), in.readInt() };
+            }
+        }
+
+        private void map() throws IOException {
+            try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+                buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            }
+            ByteBuffer b = buf.duplicate().position(8 + 24 * runs.length);
+            strings = new String[b.getInt()];
+            for (int i = 0; i < strings.length; i++) {
+                byte[] s = new byte[b.getInt()];
+                b.get(s);
+                strings[i] = new String(s, StandardCharsets.UTF_8);
+            }
+            groupCount = b.getInt();
+            groups = b.position();
+            records = b.getInt(groups + 16 * groupCount);
+            tests = groups + 16 * groupCount + 4;
+            durations = tests + 4 * records;
+            passed = durations + 8 * records;
+            ends = passed + records;
+            applied = ends + 4 * records + 4;
+        }
+
+        /** Primer registro del grupo {@code g}; el grupo siguiente al último es el total de registros. */
+        private int start(int g) {
+            return g == groupCount ? records : buf.getInt(groups + 16 * g);
+        }
+
+        Run run(int i) throws IOException {
+            if (buf == null) map();
+            int g0 = (int) runs[i][2], g1 = g0 + (int) runs[i][3];
+            int first = start(g0);
+            Run r = new Run(runs[i][0], runs[i][1], start(g1) - first);
+            for (int g = g0; g < g1; g++) {
+                String file = strings[buf.getInt(groups + 16 * g + 4)];
+                long hash = buf.getLong(groups + 16 * g + 8);
+                for (int rec = start(g), to = start(g + 1); rec < to; rec++) {
+                    int k = rec - first;
+                    r.files[k] = file;
+                    r.ruleSets[k] = hash;
+                    r.tests[k] = strings[buf.getInt(tests + 4 * rec)];
+                    r.durations[k] = buf.getLong(durations + 8 * rec);
+                    r.passed[k] = buf.get(passed + rec) != 0;
+                    int from = rec == 0 ? 0 : buf.getInt(ends + 4 * (rec - 1)), end = buf.getInt(ends + 4 * rec);
+                    r.rules[k] = new String[end - from];
+                    for (int j = from; j < end; j++) r.rules[k][j - from] = strings[buf.getInt(applied + 4 * j)];
+                }
+            }
+            return r;
+        }
+    }
+}
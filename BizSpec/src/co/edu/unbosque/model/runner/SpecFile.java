@@ -0,0 +1,123 @@
+package co.edu.unbosque.model.runner;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.BitSet;
+import java.util.List;
+
+import co.edu.unbosque.model.ast.BizNode;
+import co.edu.unbosque.model.ast.TableNode;
+import co.edu.unbosque.model.engine.CompiledProgram;
+import co.edu.unbosque.model.engine.Coverage;
+import co.edu.unbosque.model.engine.Engine;
+import co.edu.unbosque.model.engine.Metrics;
+import co.edu.unbosque.model.engine.RuleSet;
+import co.edu.unbosque.model.engine.RuleSet.Rule;
+import co.edu.unbosque.model.engine.SourceLoader;
+import co.edu.unbosque.model.lexer.Evaluator.Test;
+import co.edu.unbosque.model.report.TestReporter;
+import co.edu.unbosque.model.report.TextReporter;
+
+/**
+ * Programa BizSpec de un archivo, compilado una sola vez: AST, reglas y tests.
+ * Inmutable; sus casos (tests y filas de tablas) se pueden correr desde varios hilos a la vez.
+ */
+public record SpecFile(Path path, BizNode program, CompiledProgram compiled) {
+
+    private static final Engine ENGINE = new Engine();
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    /**
+     * Resultado de un test; {@code report} en el formato de consola de {@link TextReporter}, solo si falló
+     * (null si pasó), {@code cpuNanos}: CPU del hilo que lo corrió (sin pausas de GC ni esperas; -1 si la JVM
+     * no la mide), {@code applied}: ids de las reglas que aplicó (null si no se pidió el detalle).
+     */
+    public record Outcome(String name, boolean passed, String report, long nanos, long cpuNanos, BitSet applied) {}
+
+    /** Archivos de specs que se descubren al recorrer directorios: las extensiones que abre el estudio. */
+    public static boolean isSpec(Path file) {
+        String name = file.getFileName().toString().toLowerCase();
+        return name.endsWith(".biztest") || name.endsWith(".bizspec");
+    }
+
+    public static SpecFile load(Path path) throws IOException {
+        return load(path, ENGINE);
+    }
+
+    public static SpecFile load(Path path, Engine engine) throws IOException {
+        return compile(path, Files.readString(path), engine);
+    }
+
+    public static SpecFile compile(Path path, String source) {
+        return compile(path, source, ENGINE);
+    }
+
+    public static SpecFile compile(Path path, String source, Engine engine) {
+        BizNode program = SourceLoader.load(source, Metrics.OFF).program();
+        return new SpecFile(path, program, engine.compile(program));
+    }
+
+    public RuleSet rules() { return compiled.rules(); }
+
+    public List<Test> tests() { return compiled.tests(); }
+
+    /** Tests más filas de tablas. */
+    public int cases() { return compiled.cases(); }
+
+    /** Costo estimado del caso {@code i}: cada uno evalúa a lo sumo todas las reglas, más sus givens y expects. */
+    public long cost(int i) {
+        long rules = rules().rules().size();
+        TableNode table = compiled.table(i);
+        if (table != null) return 1 + rules + table.columns();
+        Test t = tests().get(i);
+        return 1 + rules + t.givens().size() + t.expects().size();
+    }
+
+    /** Corre el caso {@code i} de este archivo; un error al evaluar cuenta como FAIL de ese caso. */
+    public Outcome run(int i) {
+        return run(i, i + 1, null, true)[0];
+    }
+
+    /**
+     * Corre los casos {@code from..to-1} de una vez (las filas de tabla por lotes, como {@link CompiledProgram#runTests});
+     * el resultado del caso {@code from + k} queda en la posición {@code k}. Marca la cobertura de las reglas
+     * en {@code coverage} (puede ser null). Sin {@code detail} un caso que pasa deja null y no se guarda
+     * nada de él; con {@code detail} todos dejan su resultado con las reglas aplicadas.
+     */
+    public Outcome[] run(int from, int to, Coverage coverage, boolean detail) {
+        Outcome[] out = new Outcome[to - from];
+        StringWriter text = new StringWriter();
+        TextReporter reporter = new TextReporter(text);
+        TestReporter capture = new TestReporter() {
+            int k;
+            long cpu0;
+            BitSet applied;
+
+            @Override public void testStarted(String name) {
+                text.getBuffer().setLength(0);
+                applied = detail ? new BitSet() : null;
+                reporter.testStarted(name);
+                cpu0 = THREADS.getCurrentThreadCpuTime();
+            }
+            @Override public void ruleApplied(Rule rule, Object value) {
+                reporter.ruleApplied(rule, value);
+                if (applied != null) applied.set(rule.id());
+            }
+            @Override public void expectResult(String expr, boolean ok) { reporter.expectResult(expr, ok); }
+            @Override public void testError(String name, RuntimeException error) { reporter.testError(name, error); }
+            @Override public void testFinished(String name, boolean passed, long nanos) {
+                long cpu = cpu0 < 0 ? -1 : THREADS.getCurrentThreadCpuTime() - cpu0;
+                reporter.testFinished(name, passed, nanos);
+                out[k++] = passed && !detail ? null : new Outcome(name, passed, passed ? null : text.toString(), nanos, cpu, applied);
+            }
+        };
+        RuleSet.RuleListener listener = capture::ruleApplied;
+        if (coverage != null) listener = RuleSet.RuleListener.both(listener, coverage.watch(rules()));
+        compiled.runCases(from, to, capture, listener, Metrics.OFF);
+        return out;
+    }
+}
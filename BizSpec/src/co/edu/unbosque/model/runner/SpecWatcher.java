@@ -0,0 +1,149 @@
+package co.edu.unbosque.model.runner;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Modo watch del runner sin interfaz:
+ * - Registra los directorios de specs (recursivamente) en un {@link WatchService}
+ * - Junta las ráfagas de eventos hasta {@value #DEBOUNCE_MS} ms de silencio
+ * - Re-compila solo los archivos que cambiaron; los demás conservan su {@link SpecFile} en memoria
+ * - Corre los tests de los archivos re-compilados en el pool de {@link SuiteRunner}
+ * El proceso queda vivo entre cambios, así que el motor ya compilado por el JIT se reutiliza.
+ */
+public final class SpecWatcher implements AutoCloseable {
+
+    static final long DEBOUNCE_MS = 200;
+    private final List<Path> roots;
+    private final Set<Path> explicitFiles = new HashSet<>();
+    private final PrintStream out;
+    private final SuiteRunner suite;
+    private final WatchService watcher;
+    private final Map<WatchKey, Path> dirs = new HashMap<>();
+    private final Map<Path, SpecFile> compiled = new TreeMap<>();
+
+    /** {@code roots}: directorios (se vigilan sus specs) o archivos sueltos (cualquier extensión). */
+    public SpecWatcher(List<Path> roots, int threads, PrintStream out) throws IOException {
+        this.roots = new ArrayList<>();
+        for (Path p : roots) this.roots.add(p.toAbsolutePath().normalize());
+        this.out = out;
+        this.watcher = FileSystems.getDefault().newWatchService();
+        this.suite = new SuiteRunner(threads);
+    }
+
+    /** Compila y corre todo una vez; luego espera cambios hasta que el hilo sea interrumpido. */
+    public void run() throws IOException, InterruptedException {
+        rebuild(discover());
+        while (true) {
+            Set<Path> changed = new TreeSet<>();
+            boolean rescan = drain(watcher.take(), changed);
+            WatchKey key;
+            while ((key = watcher.poll(DEBOUNCE_MS, TimeUnit.MILLISECONDS)) != null) rescan |= drain(key, changed);
+            if (rescan) {
+                changed.addAll(discover());
+                changed.addAll(compiled.keySet());
+            }
+            if (!changed.isEmpty()) rebuild(changed);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        suite.close();
+        watcher.close();
+    }
+
+    // ===== descubrimiento =====
+    private Set<Path> discover() throws IOException {
+        Set<Path> specs = new TreeSet<>();
+        for (Path root : roots) {
+            if (Files.isDirectory(root)) {
+                specs.addAll(register(root));
+            } else {
+                explicitFiles.add(root);
+                Path dir = root.getParent();
+                if (!dirs.containsValue(dir)) dirs.put(dir.register(watcher, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE), dir);
+                if (Files.isRegularFile(root)) specs.add(root);
+            }
+        }
+        return specs;
+    }
+
+    /** Registra {@code dir} y sus subdirectorios; devuelve los specs que contienen. */
+    private Set<Path> register(Path dir) throws IOException {
+        Set<Path> specs = new TreeSet<>();
+        try (Stream<Path> walk = Files.walk(dir)) {
+            for (Path p : (Iterable<Path>) walk::iterator) {
+                if (Files.isDirectory(p)) {
+                    if (!dirs.containsValue(p)) dirs.put(p.register(watcher, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE), p);
+                } else if (SpecFile.isSpec(p)) {
+                    specs.add(p);
+                }
+            }
+        }
+        return specs;
+    }
+
+    /** Acumula en {@code changed} los specs tocados por los eventos de {@code key}; true si hubo OVERFLOW. */
+    private boolean drain(WatchKey key, Set<Path> changed) throws IOException {
+        Path dir = dirs.get(key);
+        boolean overflow = false;
+        for (WatchEvent<?> ev : key.pollEvents()) {
+            if (ev.kind() == OVERFLOW) { overflow = true; continue; }
+            if (dir == null) continue;
+            Path child = dir.resolve((Path) ev.context());
+            if (ev.kind() == ENTRY_CREATE && Files.isDirectory(child)) {
+                if (underRoot(child)) changed.addAll(register(child));
+            } else if (explicitFiles.contains(child) || SpecFile.isSpec(child) && underRoot(child)) {
+                changed.add(child);
+            }
+        }
+        if (!key.reset()) dirs.remove(key);
+        return overflow;
+    }
+
+    private boolean underRoot(Path p) {
+        for (Path r : roots) if (Files.isDirectory(r) && p.startsWith(r)) return true;
+        return false;
+    }
+
+    // ===== compilar y correr =====
+    private void rebuild(Set<Path> changed) {
+        long t0 = System.nanoTime();
+        List<SpecFile> toRun = new ArrayList<>();
+        Map<Path, String> errors = new HashMap<>();
+        for (Path p : changed) {
+            if (!Files.isRegularFile(p)) {
+                if (compiled.remove(p) != null) out.println("- " + p + " (eliminado)");
+                continue;
+            }
+            try {
+                SpecFile f = SpecFile.load(p);
+                compiled.put(p, f);
+                toRun.add(f);
+            } catch (IOException | RuntimeException ex) {
+                compiled.remove(p);
+                errors.put(p, ex.getMessage());
+            }
+        }
+
+        Iterator<SuiteRunner.FileResult> ran = suite.execute(toRun).iterator();
+        List<SuiteRunner.FileResult> results = new ArrayList<>();
+        for (Path p : changed) {
+            if (errors.containsKey(p)) results.add(new SuiteRunner.FileResult(p, errors.get(p)));
+            else if (compiled.containsKey(p)) results.add(ran.next());
+        }
+        out.print(new SuiteRunner.Summary(results, System.nanoTime() - t0));
+        out.println("(esperando cambios)");
+        out.flush();
+    }
+}
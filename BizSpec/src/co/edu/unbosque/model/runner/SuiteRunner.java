@@ -0,0 +1,227 @@
+package co.edu.unbosque.model.runner;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.Stream;
+
+import co.edu.unbosque.model.engine.Coverage;
+import co.edu.unbosque.model.engine.Engine;
+import co.edu.unbosque.model.engine.RuleAnalyzer;
+import co.edu.unbosque.model.engine.RuleSet;
+
+/**
+ * Runner de suites de varios archivos:
+ * - Descubre los specs (orden lexicográfico de ruta, estable entre corridas) y admite shards índice/cantidad
+ * - Lee y compila cada archivo una sola vez, en paralelo
+ * - Los tests de todos los archivos se reparten en un {@link ForkJoinPool} compartido: cada tarea
+ *   se parte por la mitad del costo estimado (reglas + givens + expects), no por la mitad de los tests;
+ *   una tarea hoja corre de una vez los casos seguidos de un mismo archivo (las filas de tabla por lotes)
+ * - Resultados por archivo y globales siempre en el orden de los archivos, sin importar qué hilo corrió qué
+ * - De un caso que pasa solo se cuenta el resultado, salvo que se pida el detalle de cada caso
+ *   (lo que guarda {@link RunHistory}): la memoria crece con los fallidos, no con el tamaño de la suite
+ */
+public final class SuiteRunner implements AutoCloseable {
+
+    /** Costo estimado por debajo del cual una tarea ya no se parte. */
+    private static final long LEAF_COST = 4096;
+
+    /**
+     * Resultado de un archivo: casos que pasaron y que fallaron, o {@code error} si no compiló;
+     * {@code outcomes}: en orden de los casos, los fallidos o todos si se pidió el detalle;
+     * {@code warnings}: reglas quitadas al compilar (solo con {@link Engine.Optimization#PRUNE});
+     * {@code rules}: las reglas con que corrió (null si no compiló).
+     */
+    public record FileResult(Path path, int passed, int failed, List<SpecFile.Outcome> outcomes, String error,
+                             List<RuleAnalyzer.Warning> warnings, RuleSet rules) {
+        /** Archivo que no se pudo leer o compilar. */
+        public FileResult(Path path, String error) {
+            this(path, 0, 0, List.of(), error, List.of(), null);
+        }
+    }
+
+    public record Summary(List<FileResult> files, long nanos) {
+        public int passed() { return files.stream().mapToInt(FileResult::passed).sum(); }
+        public int failed() { return files.stream().mapToInt(FileResult::failed).sum(); }
+        public int errors() { return (int) files.stream().filter(f -> f.error != null).count(); }
+        public boolean ok() { return failed() == 0 && errors() == 0; }
+
+        /** Reportes de los tests fallidos, una línea por archivo y el total. */
+        @Override
+        public String toString() {
+            StringBuilder out = new StringBuilder();
+            for (FileResult f : files) {
+                if (f.error != null) {
+                    out.append("✗ ").append(f.path).append(": ").append(f.error).append("\n");
+                    continue;
+                }
+                for (RuleAnalyzer.Warning w : f.warnings) out.append("⚠ ").append(f.path).append(" ").append(w).append("\n");
+                for (SpecFile.Outcome o : f.outcomes) if (!o.passed()) out.append(o.report());
+                out.append(f.path).append(": ").append(f.passed()).append(" PASS, ").append(f.failed()).append(" FAIL\n");
+            }
+            out.append(String.format("== %d archivo(s), %d PASS, %d FAIL, %d error(es) en %.1f ms ==%n",
+                    files.size(), passed(), failed(), errors(), nanos / 1e6));
+            return out.toString();
+        }
+    }
+
+    private final ForkJoinPool pool;
+    private final Engine engine;
+
+    public SuiteRunner(int threads) {
+        this(threads, new Engine());
+    }
+
+    /** {@code engine}: límites y optimización con que se compila cada archivo. */
+    public SuiteRunner(int threads, Engine engine) {
+        this.pool = new ForkJoinPool(Math.max(1, threads));
+        this.engine = engine;
+    }
+
+    /** Specs bajo {@code roots} (los archivos dados explícitamente se incluyen con cualquier extensión). */
+    public static List<Path> discover(List<Path> roots) throws IOException {
+        Set<Path> specs = new TreeSet<>();
+        for (Path root : roots) {
+            Path r = root.toAbsolutePath().normalize();
+            if (!Files.isDirectory(r)) {
+                specs.add(r);
+                continue;
+            }
+            try (Stream<Path> walk = Files.walk(r)) {
+                walk.filter(p -> Files.isRegularFile(p) && SpecFile.isSpec(p)).forEach(specs::add);
+            }
+        }
+        return new ArrayList<>(specs);
+    }
+
+    /** Archivos del shard {@code index} (0..count-1): uno de cada {@code count}, en orden. */
+    public static List<Path> shard(List<Path> files, int index, int count) {
+        if (count < 1 || index < 0 || index >= count) {
+            throw new IllegalArgumentException("Shard inválido: " + index + "/" + count);
+        }
+        List<Path> out = new ArrayList<>();
+        for (int i = index; i < files.size(); i += count) out.add(files.get(i));
+        return out;
+    }
+
+    /** Lee y compila {@code files} en paralelo y corre todos sus tests. */
+    public Summary run(List<Path> files) {
+        return run(files, null, false);
+    }
+
+    /**
+     * Igual que {@link #run(List)}; marca en {@code coverage} (puede ser null) la cobertura de cada archivo.
+     * Con {@code detail} guarda el resultado de cada caso, también de los que pasan (para {@link RunHistory}).
+     */
+    public Summary run(List<Path> files, Coverage coverage, boolean detail) {
+        long t0 = System.nanoTime();
+        List<ForkJoinTask<Object>> loads = new ArrayList<>(files.size());
+        for (Path p : files) loads.add(pool.submit(() -> {
+            try {
+                return SpecFile.load(p, engine);
+            } catch (IOException | RuntimeException ex) {
+                return ex.getMessage() == null ? ex.toString() : ex.getMessage();
+            }
+        }));
+        List<SpecFile> compiled = new ArrayList<>();
+        String[] errors = new String[files.size()];
+        for (int i = 0; i < files.size(); i++) {
+            Object r = loads.get(i).join();
+            if (r instanceof SpecFile f) compiled.add(f);
+            else errors[i] = (String) r;
+        }
+        List<FileResult> ran = execute(compiled, coverage, detail);
+        List<FileResult> results = new ArrayList<>(files.size());
+        for (int i = 0, k = 0; i < files.size(); i++) {
+            results.add(errors[i] != null ? new FileResult(files.get(i), errors[i]) : ran.get(k++));
+        }
+        return new Summary(Collections.unmodifiableList(results), System.nanoTime() - t0);
+    }
+
+    /** Corre los tests de archivos ya compilados; un resultado por archivo, en el mismo orden. */
+    public List<FileResult> execute(List<SpecFile> files) {
+        return execute(files, null, false);
+    }
+
+    public List<FileResult> execute(List<SpecFile> files, Coverage coverage, boolean detail) {
+        int n = 0;
+        for (SpecFile f : files) n += f.cases();
+        int[] fileOf = new int[n], testOf = new int[n];
+        long[] prefix = new long[n + 1];
+        SpecFile.Outcome[][] outcomes = new SpecFile.Outcome[files.size()][];
+        for (int i = 0, k = 0; i < files.size(); i++) {
+            SpecFile f = files.get(i);
+            outcomes[i] = new SpecFile.Outcome[f.cases()];
+            for (int t = 0; t < f.cases(); t++, k++) {
+                fileOf[k] = i;
+                testOf[k] = t;
+                prefix[k + 1] = prefix[k] + f.cost(t);
+            }
+        }
+        if (n > 0) pool.invoke(new Slice(files, coverage, detail, fileOf, testOf, prefix, outcomes, 0, n));
+        List<FileResult> out = new ArrayList<>(files.size());
+        for (int i = 0; i < files.size(); i++) {
+            SpecFile f = files.get(i);
+            List<SpecFile.Outcome> kept = new ArrayList<>();
+            int failed = 0;
+            for (SpecFile.Outcome o : outcomes[i]) {
+                if (o == null) continue;   // pasó, sin detalle
+                kept.add(o);
+                if (!o.passed()) failed++;
+            }
+            out.add(new FileResult(f.path(), f.cases() - failed, failed, Collections.unmodifiableList(kept), null,
+                    f.compiled().warnings(), f.rules()));
+        }
+        return out;
+    }
+
+    @Override
+    public void close() { pool.shutdownNow(); }
+
+    // ===== internos =====
+    private static final class Slice extends RecursiveAction {
+        final List<SpecFile> files;
+        final Coverage coverage;
+        final boolean detail;
+        final int[] fileOf, testOf;
+        final long[] prefix;
+        final SpecFile.Outcome[][] outcomes;
+        final int from, to;
+
+        Slice(List<SpecFile> files, Coverage coverage, boolean detail, int[] fileOf, int[] testOf, long[] prefix,
+              SpecFile.Outcome[][] outcomes, int from, int to) {
+            this.files = files;
+            this.coverage = coverage;
+            this.detail = detail;
+            this.fileOf = fileOf;
+            this.testOf = testOf;
+            this.prefix = prefix;
+            this.outcomes = outcomes;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1 && prefix[to] - prefix[from] > LEAF_COST) {
+                // partir por la mitad del costo: primer índice cuyo acumulado alcanza el punto medio
+                long half = (prefix[from] + prefix[to]) >>> 1;
+                int m = Arrays.binarySearch(prefix, from + 1, to, half);
+                if (m < 0) m = -m - 1;
+                m = Math.max(from + 1, Math.min(to - 1, m));
+                invokeAll(new Slice(files, coverage, detail, fileOf, testOf, prefix, outcomes, from, m),
+                          new Slice(files, coverage, detail, fileOf, testOf, prefix, outcomes, m, to));
+                return;
+            }
+            for (int k = from, end; k < to; k = end) {
+                for (end = k + 1; end < to && fileOf[end] == fileOf[k]; end++);
+                SpecFile.Outcome[] ran = files.get(fileOf[k]).run(testOf[k], testOf[end - 1] + 1, coverage, detail);
+                System.arraycopy(ran, 0, outcomes[fileOf[k]], testOf[k], ran.length);
+            }
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package co.edu.unbosque.view;
 
 import javax.swing.*;
+import javax.swing.event.DocumentListener;
 import javax.swing.filechooser.FileNameExtensionFilter;
 import java.awt.*;
 import java.awt.event.KeyEvent;
@@ -8,15 +9,23 @@ import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.util.function.Consumer;
+
+import co.edu.unbosque.model.lexer.TokenType;
 
 public class BizSpecFrame extends JFrame {
+    private static final int CONSOLE_MAX_CHARS = 2_000_000;
+
     private final JTextArea editor = new JTextArea();
     private final JTable tokenTable = new JTable();
+    private final JComboBox<Object> tokenFilter = new JComboBox<>();
     private final JTextArea console = new JTextArea();
     private final JLabel status = new JLabel("Listo");
     private File currentFile = null;
 
-    private Runnable onTokenize, onParse, onRunTests;
+    private Runnable onTokenize, onParse, onRunTests, onShowMetrics, onCancel;
+    private Consumer<Boolean> onToggleMetrics, onToggleCoverage, onToggleLive;
+    private Consumer<File> onExportReport;
 
     public BizSpecFrame() {
         super("BizSpec Studio");
@@ -31,16 +40,29 @@ public class BizSpecFrame extends JFrame {
     public void onTokenize(Runnable r) { this.onTokenize = r; }
     public void onParse(Runnable r) { this.onParse = r; }
     public void onRunTests(Runnable r) { this.onRunTests = r; }
+    public void onToggleMetrics(Consumer<Boolean> c) { this.onToggleMetrics = c; }
+    public void onShowMetrics(Runnable r) { this.onShowMetrics = r; }
+    public void onToggleCoverage(Consumer<Boolean> c) { this.onToggleCoverage = c; }
+    public void onExportReport(Consumer<File> c) { this.onExportReport = c; }
+    public void onCancel(Runnable r) { this.onCancel = r; }
+    public void onToggleLive(Consumer<Boolean> c) { this.onToggleLive = c; }
 
     // ==== view API ====
     public String getSource() { return editor.getText(); }
-    public void setTokens(TokenTableModel model) { tokenTable.setModel(model); }
+    public void setTokens(TokenTableModel model) {
+        Object sel = tokenFilter.getSelectedItem();
+        model.setFilter(sel instanceof TokenType t ? t : null);
+        tokenTable.setModel(model);
+    }
     public void setStatus(String s) { status.setText(s); }
     public void showError(String s) { status.setText("Error"); console.setText(s); }
     public void clearConsole() { console.setText(""); }
     public void setConsole(String s) { console.setText(s); }
     public void appendConsole(String s) { console.append(s+ "\n"); }
+    /** Writer por bloques hacia la consola; la consola conserva a lo sumo los ltimos 2M caracteres. */
+    public ConsoleWriter consoleWriter() { return new ConsoleWriter(console, CONSOLE_MAX_CHARS); }
     public void loadSample(String src) { editor.setText(src); }
+    public void addEditorListener(DocumentListener l) { editor.getDocument().addDocumentListener(l); }
 
     // ==== UI ====
     private void setSystemLnF() {
@@ -56,8 +78,21 @@ public class BizSpecFrame extends JFrame {
         // Izquierda: editor
         JScrollPane left = new JScrollPane(editor);
 
-        // Derecha: tabla de tokens
-        JScrollPane right = new JScrollPane(tokenTable);
+        // Derecha: tabla de tokens (virtual) con filtro por tipo
+        tokenFilter.addItem("Todos");
+        for (TokenType t : TokenType.values()) tokenFilter.addItem(t);
+        tokenFilter.addActionListener(e -> {
+            if (tokenTable.getModel() instanceof TokenTableModel m) {
+                Object sel = tokenFilter.getSelectedItem();
+                m.setFilter(sel instanceof TokenType t ? t : null);
+            }
+        });
+        JPanel filterBar = new JPanel(new FlowLayout(FlowLayout.LEFT, 4, 2));
+        filterBar.add(new JLabel("Tipo:"));
+        filterBar.add(tokenFilter);
+        JPanel right = new JPanel(new BorderLayout());
+        right.add(filterBar, BorderLayout.NORTH);
+        right.add(new JScrollPane(tokenTable), BorderLayout.CENTER);
 
         JSplitPane main = new JSplitPane(JSplitPane.HORIZONTAL_SPLIT, left, right);
         main.setResizeWeight(0.6);
@@ -84,25 +119,47 @@ public class BizSpecFrame extends JFrame {
         JMenuBar bar = new JMenuBar();
         JMenu file = new JMenu("Archivo");
         JMenu run = new JMenu("Ejecutar");
+        JMenu viewMenu = new JMenu("Ver");
 
         JMenuItem open = new JMenuItem("Abrir");
         JMenuItem save = new JMenuItem("Guardar");
         JMenuItem saveAs = new JMenuItem("Guardar como");
+        JMenuItem export = new JMenuItem("Exportar reporte");
         JMenuItem tokenize = new JMenuItem("Tokenizar");
         JMenuItem parse = new JMenuItem("Parsear");
         JMenuItem runTests = new JMenuItem("Correr Tests");
+        JMenuItem cancel = new JMenuItem("Cancelar");
+        cancel.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_ESCAPE, 0));
+        JCheckBoxMenuItem metrics = new JCheckBoxMenuItem("Instrumentacin");
+        JMenuItem showMetrics = new JMenuItem("Ver mtricas");
+        JCheckBoxMenuItem coverage = new JCheckBoxMenuItem("Cobertura de reglas");
+        JCheckBoxMenuItem live = new JCheckBoxMenuItem("Tests en vivo");
+        JMenuItem goToLine = new JMenuItem("Ir a lnea");
+        goToLine.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_G, Toolkit.getDefaultToolkit().getMenuShortcutKeyMaskEx()));
 
         open.addActionListener(e -> open());
         save.addActionListener(e -> save(false));
         saveAs.addActionListener(e -> save(true));
+        export.addActionListener(e -> exportReport());
+        goToLine.addActionListener(e -> goToLine());
         tokenize.addActionListener(e -> { if (onTokenize != null) onTokenize.run(); });
         parse.addActionListener(e -> { if (onParse != null) onParse.run(); });
         runTests.addActionListener(e -> { if (onRunTests != null) onRunTests.run(); });
+        cancel.addActionListener(e -> { if (onCancel != null) onCancel.run(); });
+        metrics.addActionListener(e -> { if (onToggleMetrics != null) onToggleMetrics.accept(metrics.isSelected()); });
+        showMetrics.addActionListener(e -> { if (onShowMetrics != null) onShowMetrics.run(); });
+        coverage.addActionListener(e -> { if (onToggleCoverage != null) onToggleCoverage.accept(coverage.isSelected()); });
+        live.addActionListener(e -> { if (onToggleLive != null) onToggleLive.accept(live.isSelected()); });
 
         file.add(open); file.add(save); file.add(saveAs);
-        run.add(tokenize); run.add(parse); run.add(runTests);
+        file.addSeparator(); file.add(export);
+        run.add(tokenize); run.add(parse); run.add(runTests); run.add(cancel);
+        run.addSeparator(); run.add(metrics); run.add(showMetrics); run.add(coverage);
+        run.addSeparator(); run.add(live);
+
+        viewMenu.add(goToLine);
 
-        bar.add(file); bar.add(run);
+        bar.add(file); bar.add(run); bar.add(viewMenu);
         return bar;
     }
 
@@ -121,6 +178,34 @@ public class BizSpecFrame extends JFrame {
         }
     }
 
+    private void goToLine() {
+        String s = JOptionPane.showInputDialog(this, "Lnea:", "Ir a lnea", JOptionPane.PLAIN_MESSAGE);
+        if (s == null || s.isBlank()) return;
+        int line;
+        try { line = Integer.parseInt(s.trim()); } catch (NumberFormatException ex) { return; }
+        try {
+            int idx = Math.max(0, Math.min(line - 1, editor.getLineCount() - 1));
+            editor.setCaretPosition(editor.getLineStartOffset(idx));
+            editor.requestFocusInWindow();
+        } catch (Exception ignored) {}
+        if (tokenTable.getModel() instanceof TokenTableModel m) {
+            int row = m.rowForLine(line);
+            if (row >= 0) {
+                tokenTable.setRowSelectionInterval(row, row);
+                tokenTable.scrollRectToVisible(tokenTable.getCellRect(row, 0, true));
+            }
+        }
+    }
+
+    private void exportReport() {
+        JFileChooser ch = new JFileChooser();
+        ch.setFileFilter(new FileNameExtensionFilter("Reporte (*.txt, *.xml JUnit, *.jsonl)", "txt", "xml", "jsonl"));
+        if (ch.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) return;
+        File f = ch.getSelectedFile();
+        if (!f.getName().contains(".")) f = new File(f.getParentFile(), f.getName() + ".txt");
+        if (onExportReport != null) onExportReport.accept(f);
+    }
+
     private void save(boolean forceDialog) {
         if (currentFile == null || forceDialog) {
             JFileChooser ch = new JFileChooser();
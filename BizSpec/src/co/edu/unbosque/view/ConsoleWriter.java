@@ -0,0 +1,50 @@
+package co.edu.unbosque.view;
+
+import java.io.Writer;
+
+import javax.swing.JTextArea;
+import javax.swing.text.BadLocationException;
+
+/**
+ * Writer que vuelca texto a la consola por bloques y recorta el inicio
+ * para que el documento no pase de {@code maxChars}.
+ */
+public class ConsoleWriter extends Writer {
+    private static final int CHUNK = 16 * 1024;
+
+    private final JTextArea area;
+    private final int maxChars;
+    private final StringBuilder pending = new StringBuilder();
+
+    public ConsoleWriter(JTextArea area, int maxChars) {
+        this.area = area;
+        this.maxChars = maxChars;
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) {
+        pending.append(cbuf, off, len);
+        if (pending.length() >= CHUNK) flush();
+    }
+
+    @Override
+    public void write(String str) {
+        pending.append(str);
+        if (pending.length() >= CHUNK) flush();
+    }
+
+    @Override
+    public void flush() {
+        if (pending.length() == 0) return;
+        area.append(pending.toString());
+        pending.setLength(0);
+        int excess = area.getDocument().getLength() - maxChars;
+        if (excess > 0) {
+            try { area.getDocument().remove(0, excess); }
+            catch (BadLocationException ignored) {}
+        }
+    }
+
+    @Override
+    public void close() { flush(); }
+}
@@ -3,28 +3,98 @@ package co.edu.unbosque.view;
 
 import javax.swing.table.AbstractTableModel;
 
-import co.edu.unbosque.model.lexer.Token;
+import co.edu.unbosque.model.lexer.TokenStore;
+import co.edu.unbosque.model.lexer.TokenType;
 
-import java.util.List;
+import java.util.Arrays;
 
+/**
+ * Modelo virtual de la tabla de tokens: cada fila se lee del {@link TokenStore} cuando JTable la pinta.
+ * Con filtro por tipo solo se guarda el índice de cada fila múltiplo de {@value #STRIDE}.
+ */
 public class TokenTableModel extends AbstractTableModel {
-    private final List<Token> toks;
+    private static final int STRIDE = 4096;
+
+    private final TokenStore store;
     private final String[] cols = {"#", "Type", "Lexeme", "Line", "Col"};
+    private TokenType filter;
+    private int rows;
+    private int[] checkpoints = new int[0];
+    private int lastRow = -1, lastIdx;
+
+    public TokenTableModel(TokenStore store) {
+        this.store = store;
+        this.rows = store.size();
+    }
+
+    /** Muestra solo los tokens de {@code type}; null muestra todos. */
+    public void setFilter(TokenType type) {
+        filter = type;
+        lastRow = -1;
+        if (type == null) {
+            rows = store.size();
+            checkpoints = new int[0];
+        } else {
+            int[] cp = new int[16];
+            int n = 0;
+            for (int i = 0; i < store.size(); i++) {
+                if (store.type(i) != type) continue;
+                if (n % STRIDE == 0) {
+                    if (n / STRIDE == cp.length) cp = Arrays.copyOf(cp, cp.length * 2);
+                    cp[n / STRIDE] = i;
+                }
+                n++;
+            }
+            rows = n;
+            checkpoints = Arrays.copyOf(cp, (n + STRIDE - 1) / STRIDE);
+        }
+        fireTableDataChanged();
+    }
+
+    /** Fila del primer token visible en la línea {@code line} o después (-1 si no hay). */
+    public int rowForLine(int line) {
+        int idx = store.firstTokenOfLine(line);
+        if (filter == null) return idx < rows ? idx : -1;
+        int k = Arrays.binarySearch(checkpoints, idx);
+        if (k >= 0) return k * STRIDE;
+        k = -k - 2;
+        if (k < 0) k = 0;
+        int row = k * STRIDE;
+        for (int i = checkpoints.length == 0 ? idx : checkpoints[k]; i < store.size(); i++) {
+            if (store.type(i) != filter) continue;
+            if (i >= idx) return row;
+            row++;
+        }
+        return -1;
+    }
 
-    public TokenTableModel(List<Token> toks) { this.toks = toks; }
+    private int indexOf(int row) {
+        if (filter == null) return row;
+        if (row == lastRow) return lastIdx;
+        int r, i;
+        if (lastRow >= 0 && row > lastRow && row - lastRow < STRIDE) { r = lastRow; i = lastIdx; }
+        else { r = (row / STRIDE) * STRIDE; i = checkpoints[row / STRIDE]; }
+        while (r < row) {
+            i++;
+            if (store.type(i) == filter) r++;
+        }
+        lastRow = row;
+        lastIdx = i;
+        return i;
+    }
 
-    @Override public int getRowCount() { return toks.size(); }
+    @Override public int getRowCount() { return rows; }
     @Override public int getColumnCount() { return cols.length; }
     @Override public String getColumnName(int c) { return cols[c]; }
 
     @Override public Object getValueAt(int r, int c) {
-        Token t = toks.get(r);
+        int i = indexOf(r);
         return switch (c) {
-            case 0 -> r;
-            case 1 -> t.type;
-            case 2 -> t.lexeme;
-            case 3 -> t.line;
-            case 4 -> t.col;
+            case 0 -> i;
+            case 1 -> store.type(i);
+            case 2 -> store.lexeme(i);
+            case 3 -> store.line(i);
+            case 4 -> store.col(i);
             default -> "";
         };
     }
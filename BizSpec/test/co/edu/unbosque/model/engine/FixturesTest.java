@@ -0,0 +1,47 @@
+package co.edu.unbosque.model.engine;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import co.edu.unbosque.model.report.TestReporter;
+
+/**
+ * Givens compartidos y límites del motor: un test pasa o falla igual corra solo o junto a otro
+ * que comparte su prefijo, y sin límites de operaciones ni de tiempo el prefijo se sigue compartiendo.
+ */
+public class FixturesTest {
+
+    private static final String RULE;
+    static {
+        StringBuilder r = new StringBuilder("rule \"suma\" when x == 1 then y = a");
+        for (int k = 1; k < 20; k++) r.append(" + a");
+        RULE = r.append("\n").toString();
+    }
+
+    private static final String UNO = "test \"uno\" {\n  given a = 1, x = 1\n  expect y == 20\n}\n";
+    private static final String DOS = "test \"dos\" {\n  given a = 1, x = 1\n  given z = 2\n  expect y == 20\n}\n";
+
+    public static void main(String[] args) {
+        Limits ops = new Limits(256, 25, 0);
+        Map<String, Boolean> solo = run(ops, RULE + UNO);
+        Map<String, Boolean> shared = run(ops, RULE + UNO + DOS);
+        if (solo.get("uno")) throw new AssertionError("\"uno\" debía superar el límite de operaciones");
+        if (!solo.get("uno").equals(shared.get("uno"))) {
+            throw new AssertionError("\"uno\" cambia de resultado al compartir su prefijo: solo " + solo + ", con otro " + shared);
+        }
+        if (shared.get("dos")) throw new AssertionError("\"dos\" debía superar el límite de operaciones: " + shared);
+
+        Map<String, Boolean> free = run(Limits.DEFAULT, RULE + UNO + DOS);
+        if (!free.get("uno") || !free.get("dos")) throw new AssertionError("Sin límites ambos pasan: " + free);
+        System.out.println("FixturesTest: OK");
+    }
+
+    /** Resultado de cada test por nombre. */
+    private static Map<String, Boolean> run(Limits limits, String source) {
+        Map<String, Boolean> out = new LinkedHashMap<>();
+        new Engine(limits).compile(source).runTests(new TestReporter() {
+            @Override public void testFinished(String name, boolean passed, long nanos) { out.put(name, passed); }
+        }, Metrics.OFF, null);
+        return out;
+    }
+}
@@ -0,0 +1,79 @@
+package co.edu.unbosque.model.engine;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Advertencias de {@link RuleAnalyzer}: solo se marca una regla si es seguro que nunca se aplica,
+ * con la semántica del intérprete (null menor que todo, == exige el mismo tipo, literales Double).
+ */
+public class RuleAnalyzerTest {
+
+    public static void main(String[] args) {
+        // rangos imposibles; los posibles no se marcan
+        expect("rule \"imposible\" when x >= 100 and x < 50 then y = 1\n"
+                + "rule \"posible\" when x >= 50 and x < 100 then z = 1\n"
+                + "rule \"un lado\" when x > 5 or x < 3 and x > 4 then w = 1\n",
+                Map.of("imposible", RuleAnalyzer.Kind.UNSATISFIABLE));
+
+        // tapada por los dos lados de un or y por dos reglas anteriores juntas
+        expect("rule \"fuera\" when x < 10 or x > 20 then y = 1\n"
+                + "rule \"arriba\" when x > 30 then y = 2\n"
+                + "rule \"medio\" when x > 15 then y = 3\n"
+                + "rule \"bajo\" when a < 10 then z = 1\n"
+                + "rule \"alto\" when a >= 10 then z = 2\n"
+                + "rule \"cinco\" when a == 5 then z = 3\n",
+                Map.of("arriba", RuleAnalyzer.Kind.SHADOWED, "cinco", RuleAnalyzer.Kind.SHADOWED));
+
+        // null es menor que cualquier literal: x < 0 lo cubre, x > 0 no
+        expect("rule \"negativo\" when x < 0 then y = 1\n"
+                + "rule \"nulo\" when x == null then y = 2\n"
+                + "rule \"positivo\" when x > 0 then z = 1\n"
+                + "rule \"nulo otra vez\" when x == null then z = 2\n"
+                + "rule \"nunca nulo\" when x == null and x != null then w = 1\n",
+                Map.of("nulo", RuleAnalyzer.Kind.SHADOWED, "nunca nulo", RuleAnalyzer.Kind.UNSATISFIABLE));
+
+        // 1 y 1.0 son el mismo Double
+        expect("rule \"entero\" when x == 1 then y = 1\n"
+                + "rule \"decimal\" when x == 1.0 then y = 2\n"
+                + "rule \"distinto\" when x == 1 and x != 1.0 then z = 1\n"
+                + "rule \"entre\" when x > 1 and x < 1.5 then w = 1\n",
+                Map.of("decimal", RuleAnalyzer.Kind.SHADOWED, "distinto", RuleAnalyzer.Kind.UNSATISFIABLE));
+
+        // un valor no Double (String, Integer...) con valor numérico 3 cumple >= 3 y <= 3 pero no == 3
+        expect("rule \"tres\" when x == 3 then y = 1\n"
+                + "rule \"rango tres\" when x >= 3 and x <= 3 then y = 2\n"
+                + "rule \"rango igual\" when x >= 3 and x <= 3 then z = 1\n"
+                + "rule \"igual\" when x == 3 then z = 2\n",
+                Map.of("igual", RuleAnalyzer.Kind.SHADOWED));
+
+        // una regla de otro target que escribe lo que leen entre las dos impide marcarla
+        String before = "rule \"positivo\" when x > 0 then y = 1\n";
+        String after = "rule \"mayor\" when x > 5 then y = 2\n";
+        expect(before + after, Map.of("mayor", RuleAnalyzer.Kind.SHADOWED));
+        expect(before + "rule \"escribe x\" when z == 1 then x = 0\n" + after, Map.of());
+        expect(before + "rule \"escribe w\" when z == 1 then w = 0\n" + after, Map.of("mayor", RuleAnalyzer.Kind.SHADOWED));
+
+        // tapada de verdad, pero con demasiadas combinaciones se rinde sin marcarla
+        expect(pairs(3), Map.of("ultima", RuleAnalyzer.Kind.SHADOWED));
+        expect(pairs(14), Map.of());
+
+        System.out.println("RuleAnalyzerTest: OK");
+    }
+
+    /** {@code n} reglas {@code pk > 0 and qk > 0}, luego {@code x == 1} y una última regla {@code x == 1}, todas a y. */
+    private static String pairs(int n) {
+        StringBuilder src = new StringBuilder();
+        for (int k = 0; k < n; k++) {
+            src.append("rule \"par").append(k).append("\" when p").append(k).append(" > 0 and q").append(k).append(" > 0 then y = 1\n");
+        }
+        return src.append("rule \"uno\" when x == 1 then y = 2\n").append("rule \"ultima\" when x == 1 then y = 3\n").toString();
+    }
+
+    private static void expect(String source, Map<String, RuleAnalyzer.Kind> want) {
+        Map<String, RuleAnalyzer.Kind> got = new LinkedHashMap<>();
+        RuleSet rs = RuleSet.compile(SourceLoader.load(source, Metrics.OFF).program());
+        for (RuleAnalyzer.Warning w : RuleAnalyzer.analyze(rs)) got.put(w.rule().name(), w.kind());
+        if (!got.equals(want)) throw new AssertionError("Para:\n" + source + "se esperaba " + want + " y se obtuvo " + got);
+    }
+}
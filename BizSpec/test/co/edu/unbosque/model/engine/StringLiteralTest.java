@@ -0,0 +1,52 @@
+package co.edu.unbosque.model.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import co.edu.unbosque.model.report.TestReporter;
+
+
+/**
+ * Strings en reglas, givens y expects: se comparan como strings, igual que las celdas de una tabla,
+ * y no como la ruta del mismo nombre. Una coma o comillas escapadas dentro del string no parten el given.
+ */
+public class StringLiteralTest {
+
+    private static final String SOURCE = String.join("\n",
+        "rule \"oro barato\" when cliente.nivel == \"oro\" and carrito.total < 100 then costo = 5",
+        "rule \"resto\" when costo == null then costo = 0",
+        "rule \"saludo\" when cliente.nivel == \"oro\" then saludo = \"dijo \\\"hola\\\", \\\\ adios\"",
+        "table \"envio por total\" given carrito.total, cliente.nivel expect costo {",
+        "  50, \"oro\", 5",
+        "  150, \"plata\", 0",
+        "}",
+        "test \"given con coma\" {",
+        "  given cliente.nivel = \"oro\", nota = \"a, b\", carrito.total = 10",
+        "  expect costo == 5",
+        "  expect nota == \"a, b\"",
+        "  expect saludo == \"dijo \\\"hola\\\", \\\\ adios\"",
+        "}",
+        "test \"ruta homonima\" {",
+        "  given oro = \"plata\", cliente.nivel = \"plata\", carrito.total = 10",
+        "  expect costo == 0",
+        "}",
+        "");
+
+    public static void main(String[] args) {
+        List<String> failed = new ArrayList<>();
+        int[] total = {0};
+        CompiledProgram program = new Engine().compile(SOURCE);
+        program.runTests(new TestReporter() {
+            @Override public void testError(String name, RuntimeException error) {
+                failed.add(name + ": " + error.getMessage());
+            }
+            @Override public void testFinished(String name, boolean passed, long nanos) {
+                total[0]++;
+                if (!passed) failed.add(name);
+            }
+        }, Metrics.OFF, null);
+        if (total[0] != 4) throw new AssertionError("Se esperaban 4 casos y corrieron " + total[0]);
+        if (!failed.isEmpty()) throw new AssertionError("Fallaron: " + failed);
+        System.out.println("StringLiteralTest: OK (" + total[0] + " casos)");
+    }
+}
@@ -0,0 +1,131 @@
+package co.edu.unbosque.model.parser;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import co.edu.unbosque.model.ast.BizNode;
+import co.edu.unbosque.model.ast.TableNode;
+import co.edu.unbosque.model.lexer.Token;
+import co.edu.unbosque.model.lexer.TokenStore;
+import co.edu.unbosque.model.lexer.Tokenizer;
+
+/**
+ * {@link IncrementalParser} contra el front end completo (Tokenizer + Parser) en secuencias de ediciones
+ * al azar: mismos tokens, mismo AST (con líneas y columnas) y mismo primer error después de cada edición.
+ */
+public class IncrementalParserTest {
+
+    /** Líneas con las que se arman los documentos: bloques válidos, incompletos y errores léxicos. */
+    private static final String[] LINES = {
+        "rule \"a\" when x > 1 then y = 2",
+        "rule \"b\" when y == null then y = 5",
+        "rule \"c\" when cliente.nivel == \"oro\" then z = \"a\\\"b\"",
+        "test \"t\" {",
+        "  given x=3",
+        "  expect y == 2",
+        "}",
+        "table \"tab\" given x expect y {",
+        "  1, 2",
+        "  \"s\", true",
+        "",
+        "# comentario",
+        "  given \"sin cerrar",
+        "test \"u\" {",
+        " expect 1 ==",
+        "\r",
+        "rule",
+        "x ! y",
+    };
+
+    public static void main(String[] args) {
+        Random r = new Random(args.length > 0 ? Long.parseLong(args[0]) : 20261019L);
+        int checks = 0;
+        for (int doc = 0; doc < 2000; doc++) {
+            List<String> text = new ArrayList<>();
+            for (int i = 1 + r.nextInt(10); i > 0; i--) text.add(pick(r));
+            IncrementalParser inc = new IncrementalParser(String.join("\n", text));
+            check(text, inc);
+            for (int e = 0; e < 8; e++) {
+                int first = r.nextInt(text.size() + 1);
+                int removed = Math.min(text.size() - first, r.nextInt(3));
+                List<String> added = new ArrayList<>();
+                for (int i = r.nextInt(3); i > 0; i--) added.add(pick(r));
+                if (text.size() - removed + added.size() == 0) added.add(pick(r));   // el editor siempre tiene una línea
+                text.subList(first, first + removed).clear();
+                text.addAll(first, added);
+                inc.replaceLines(first, removed, added);
+                if (r.nextInt(3) == 0) continue;   // a veces se acumulan ediciones antes de consultar
+                check(text, inc);
+                checks++;
+            }
+        }
+        System.out.println("IncrementalParserTest: OK (" + checks + " comparaciones)");
+    }
+
+    private static String pick(Random r) { return LINES[r.nextInt(LINES.length)]; }
+
+    private static void check(List<String> lines, IncrementalParser inc) {
+        String src = String.join("\n", lines);
+        String want = full(src), got = incremental(inc);
+        if (!want.equals(got)) throw new AssertionError("Difieren para:\n" + src + "\n-- completo --\n" + want + "\n-- incremental --\n" + got);
+        // sin ediciones de por medio se repite el mismo resultado
+        if (!got.equals(incremental(inc))) throw new AssertionError("La segunda consulta difiere para:\n" + src);
+    }
+
+    private static String full(String src) {
+        StringBuilder out = new StringBuilder();
+        try {
+            List<Token> toks = new Tokenizer(src).tokenize();
+            out.append(toks).append('\n');
+            out.append(store(new Tokenizer(src).tokenize(new TokenStore(src)))).append('\n');
+        } catch (RuntimeException ex) {
+            out.append("ERROR ").append(ex.getMessage()).append('\n');
+        }
+        try {
+            dump(new Parser(new Tokenizer(src).tokenize()).parseProgram(), 0, out);
+        } catch (RuntimeException ex) {
+            out.append("ERROR ").append(ex.getMessage()).append('\n');
+        }
+        return out.toString();
+    }
+
+    private static String incremental(IncrementalParser inc) {
+        StringBuilder out = new StringBuilder();
+        try {
+            List<Token> toks = inc.tokens();
+            out.append(toks).append('\n');
+            out.append(store(inc.tokenStore())).append('\n');
+        } catch (RuntimeException ex) {
+            out.append("ERROR ").append(ex.getMessage()).append('\n');
+        }
+        try {
+            dump(inc.program(), 0, out);
+        } catch (RuntimeException ex) {
+            out.append("ERROR ").append(ex.getMessage()).append('\n');
+        }
+        String err = inc.firstError();
+        if (err != null && !out.toString().endsWith("ERROR " + err + "\n")) out.append("firstError distinto: ").append(err);
+        return out.toString();
+    }
+
+    private static String store(TokenStore s) {
+        StringBuilder out = new StringBuilder();
+        for (int i = 0; i < s.size(); i++) out.append(s.get(i)).append(' ');
+        return out.toString();
+    }
+
+    private static void dump(BizNode n, int depth, StringBuilder out) {
+        out.append("  ".repeat(depth)).append(n.kind).append('|').append(n.text).append('@').append(n.line).append(':').append(n.col);
+        if (n instanceof TableNode t) {
+            out.append(" given ").append(String.join(",", t.givens)).append(" expect ").append(String.join(",", t.expects));
+            for (int row = 0; row < t.rows(); row++) {
+                out.append(" [L").append(t.rowLine(row));
+                for (int c = 0; c < t.columns(); c++) out.append(' ').append(TableNode.literal(t.cell(row, c)));
+                out.append(']');
+            }
+        }
+        out.append('\n');
+        for (BizNode c : n.children) dump(c, depth + 1, out);
+    }
+}